@@ -49,6 +49,16 @@ public class LockKeyContext {
 		return keys.stream().filter(key -> key.lockId().equals(lockId)).findAny();
 	}
 
+	/**
+	 * 获取上下文中所有的钥匙
+	 * 
+	 * @since 6.7
+	 * @return 可能为null
+	 */
+	public static List<LockKey> getKeys() {
+		return KEYS_LOCAL.get();
+	}
+
 	/**
 	 * 清理上下文
 	 */
@@ -159,6 +159,16 @@ public interface ArticleDao {
 	 */
 	int selectHits(Integer id);
 
+	/**
+	 * 查询多篇文章的点击数，只会查询文章id和点击数
+	 * 
+	 * @since 6.7
+	 * @param ids
+	 *            文章id集合
+	 * @return
+	 */
+	List<Article> selectHitsByIds(Collection<Integer> ids);
+
 	/**
 	 * 上一篇文章
 	 * 
@@ -288,4 +298,22 @@ public interface ArticleDao {
 	 */
 	List<Article> selectPublishedPage(@Param("offset") int offset, @Param("limit") int limit);
 
+	/**
+	 * 查询所有已经发布的文章的id
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	List<Integer> selectPublishedIds();
+
+	/**
+	 * 查询在某个时间之后修改或者发布的已发布文章的id
+	 * 
+	 * @since 6.7
+	 * @param date
+	 *            时间
+	 * @return
+	 */
+	List<Integer> selectPublishedIdsModifiedAfter(Timestamp date);
+
 }
@@ -121,6 +121,17 @@ public interface NewsDao {
 	 */
 	void updateHits(@Param("id") Integer id, @Param("hits") int currentHits);
 
+	/**
+	 * 增加动态的点击量
+	 * 
+	 * @since 6.7
+	 * @param id
+	 *            动态的id
+	 * @param increase
+	 *            <strong>增加的</strong>点击量
+	 */
+	void addHits(@Param("id") Integer id, @Param("hits") int increase);
+
 	/**
 	 * 删除锁
 	 * 
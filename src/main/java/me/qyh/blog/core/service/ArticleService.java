@@ -25,9 +25,11 @@ import me.qyh.blog.core.security.AuthencationException;
 import me.qyh.blog.core.vo.ArticleArchiveTree;
 import me.qyh.blog.core.vo.ArticleArchiveTree.ArticleArchiveMode;
 import me.qyh.blog.core.vo.ArticleDetailStatistics;
+import me.qyh.blog.core.vo.ArticleFacets;
 import me.qyh.blog.core.vo.ArticleNav;
 import me.qyh.blog.core.vo.ArticleQueryParam;
 import me.qyh.blog.core.vo.ArticleStatistics;
+import me.qyh.blog.core.vo.ArticleSuggestion;
 import me.qyh.blog.core.vo.PageResult;
 import me.qyh.blog.core.vo.TagCount;
 
@@ -118,6 +120,22 @@ public interface ArticleService {
 	 */
 	void hit(Integer id);
 
+	/**
+	 * 默认点击策略最近一次刷新花费的时间(ms)，如果没有使用默认点击策略，返回-1
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	long getHitsLastFlushMillis();
+
+	/**
+	 * 默认点击策略中等待刷新的文章数，如果没有使用默认点击策略，返回-1
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	int getHitsPendingSize();
+
 	/**
 	 * 发布草稿
 	 * 
@@ -213,4 +231,44 @@ public interface ArticleService {
 	 */
 	ArticleStatistics queryArticleStatistics();
 
+	/**
+	 * 通过文章索引统计文章的标签、空间、发布年月以及来源
+	 * 
+	 * @since 6.7
+	 * @param param
+	 *            查询参数，如果包含查询语句，则只统计匹配的文章
+	 * @return 分面统计结果
+	 */
+	ArticleFacets queryArticleFacets(ArticleQueryParam param);
+
+	/**
+	 * 查询某篇文章的相关文章
+	 * <p>
+	 * 相关文章由文章索引在后台计算，尚未计算完成时返回空集合
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param id
+	 *            文章id
+	 * @param limit
+	 *            最大数目
+	 * @return 相关文章，只包含非私人并且没有锁保护的文章
+	 */
+	List<Article> queryRelatedArticles(Integer id, int limit);
+
+	/**
+	 * 查询<b>当前空间</b>下以prefix开头的文章标题、别名以及标签
+	 * <p>
+	 * 建议保存在内存中，不会访问数据库
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param prefix
+	 *            前缀
+	 * @param limit
+	 *            最大数目
+	 * @return 搜索建议
+	 */
+	List<ArticleSuggestion> suggest(String prefix, int limit);
+
 }
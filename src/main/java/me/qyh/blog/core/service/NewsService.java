@@ -102,6 +102,22 @@ public interface NewsService {
 	 */
 	void hit(Integer id);
 
+	/**
+	 * 默认点击策略最近一次刷新花费的时间(ms)，如果没有使用默认点击策略，返回-1
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	long getHitsLastFlushMillis();
+
+	/**
+	 * 默认点击策略中等待刷新的动态数，如果没有使用默认点击策略，返回-1
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	int getHitsPendingSize();
+
 	/**
 	 * 查询上下动态
 	 * <p>
@@ -15,64 +15,108 @@
  */
 package me.qyh.blog.core.service.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.text.BreakIterator;
+import java.time.format.DateTimeFormatter;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.DateTools.Resolution;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery.Builder;
-import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.SortField.Type;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.highlight.Formatter;
 import org.apache.lucene.search.highlight.Highlighter;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.TokenGroup;
+import org.apache.lucene.search.postingshighlight.WholeBreakIterator;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.PassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.jsoup.Jsoup;
@@ -87,6 +131,9 @@ import org.springframework.scheduling.TaskScheduler;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.util.CollectionUtils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import me.qyh.blog.core.dao.ArticleDao;
 import me.qyh.blog.core.dao.TagDao;
 import me.qyh.blog.core.entity.Article;
@@ -100,7 +147,11 @@ import me.qyh.blog.core.text.CommonMarkdown2Html;
 import me.qyh.blog.core.text.Markdown2Html;
 import me.qyh.blog.core.util.FileUtils;
 import me.qyh.blog.core.util.Validators;
+import me.qyh.blog.core.vo.ArticleFacets;
 import me.qyh.blog.core.vo.ArticleQueryParam;
+import me.qyh.blog.core.vo.ArticleSuggestion;
+import me.qyh.blog.core.vo.CursorPageResult;
+import me.qyh.blog.core.vo.IndexStatistics;
 import me.qyh.blog.core.vo.PageResult;
 
 /**
@@ -108,6 +159,12 @@ import me.qyh.blog.core.vo.PageResult;
  * <p>
  * <b>所有的索引写操作都将被放到队列中，然后依次执行，比如新增一篇文章，写文章索引的操作将会被放到最后，因此在执行到该操作之前，该篇文章无法被搜索到</b>
  * </p>
+ * <p>
+ * 文章的增加|更新|删除操作会先合并到一个变更集中(同一篇文章只保留最后一次操作)，由写线程一次性处理，文档的构建在并行的线程池中执行，写索引始终只有一个线程
+ * </p>
+ * <p>
+ * 重建索引时会在一个新的索引中进行，完成后再替换当前索引，因此重建过程中查询不会受到影响
+ * </p>
  * 
  * @author Administrator
  *
@@ -132,23 +189,83 @@ public abstract class ArticleIndexer implements InitializingBean {
 	private static final String SUMMARY = "summary";
 	private static final String LASTMODIFYDATE = "lastModifyDate";
 
+	/**
+	 * 分面统计的字段，只保存在DocValues中
+	 * 
+	 * @since 6.7
+	 */
+	private static final String FACET_TAG = "facetTag";
+	private static final String FACET_SPACE = "facetSpace";
+	private static final String FACET_MONTH = "facetMonth";
+	private static final String FACET_FROM = "facetFrom";
+	private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+	/**
+	 * 提交数据中记录的已索引文章的最大修改时间
+	 */
+	private static final String COMMIT_WATERMARK = "watermark";
+
 	protected Analyzer analyzer;
-	private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
-	private final ReferenceManager<IndexSearcher> searcherManager;
-	private final Directory dir;
-	private final IndexWriter oriWriter;
+
+	/**
+	 * 当前使用的索引，重建索引后会被替换
+	 * 
+	 * @since 6.7
+	 */
+	private volatile IndexHolder holder;
 
 	private Formatter titleFormatter;
 	private Formatter tagFormatter;
 	private Formatter summaryFormatter;
 
+	/**
+	 * 是否通过索引中的偏移量高亮
+	 * 
+	 * @since 6.7
+	 */
+	private boolean offsetsHighlight = true;
+	private PassageFormatter titlePassageFormatter;
+	private PassageFormatter summaryPassageFormatter;
+
 	private Map<String, Float> boostMap = new HashMap<>();
 	private Map<String, Float> qboostMap = new HashMap<>();
 
 	/**
-	 * 最大查询数量
+	 * 在倒排索引中记录偏移量的文本字段，用于高亮
+	 */
+	private static final FieldType TEXT_WITH_OFFSETS = new FieldType(TextField.TYPE_STORED);
+
+	static {
+		TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+		TEXT_WITH_OFFSETS.freeze();
+	}
+
+	/**
+	 * 只包含公开并且没有被锁保护的文章的过滤条件，由于几乎每次查询都会用到，作为一个整体被查询缓存
+	 */
+	private static final Query VISIBLE = new Builder().add(new TermQuery(new Term(PRIVATE, "false")), Occur.FILTER)
+			.add(new TermQuery(new Term(LOCKED, "false")), Occur.FILTER).build();
+
+	/**
+	 * 高亮时需要载入的存储字段
+	 */
+	private static final Set<String> HIGHLIGHT_FIELDS = Set.of(TITLE, SUMMARY, CONTENT, TAG);
+
+	/**
+	 * 高亮时最多处理的字符数，与{@link Highlighter}默认的数目一致
 	 */
-	private static final int MAX_RESULTS = 1000;
+	private static final int MAX_HIGHLIGHT_LENGTH = Highlighter.DEFAULT_MAX_CHARS_TO_ANALYZE;
+
+	/**
+	 * 计算相关文章时需要载入的存储字段以及最多使用的词数
+	 */
+	private static final Set<String> RELATED_FIELDS = Set.of(TITLE, SUMMARY, TAG);
+	private static final int MAX_RELATED_TERMS = 25;
+
+	/**
+	 * 通过页码分页时最多能够查询到的结果数，基于游标的分页不受该限制
+	 */
+	private int maxResults = 1000;
 	/**
 	 * @since 5.5.5 当重建所有索引时，每次从数据库中抓取并且索引的数目
 	 */
@@ -176,13 +293,129 @@ public abstract class ArticleIndexer implements InitializingBean {
 	 * @since 6.5
 	 */
 	private int commitSchedulePeriodSec;
+
+	/**
+	 * 查询结果缓存的数目，如果小于1，则不缓存查询结果
+	 * 
+	 * @since 6.7
+	 */
+	private int searchCacheSize = 200;
+	private ArticleSearchCache searchCache;
+
+	/**
+	 * 搜索建议，只在写线程中修改
+	 * 
+	 * @since 6.7
+	 */
+	private volatile ArticleSuggester suggester = new ArticleSuggester();
+
+	/**
+	 * 缓存相关文章的文章数目，如果小于1，则不计算相关文章
+	 * 
+	 * @since 6.7
+	 */
+	private int relatedCacheSize = 2000;
+	/**
+	 * 每篇文章计算的相关文章数目
+	 */
+	private int relatedSize = 10;
+	private Cache<Integer, List<Integer>> relatedCache;
+	private final Set<Integer> relatedPending = ConcurrentHashMap.newKeySet();
+	private final AtomicLong holderSequence = new AtomicLong();
 	@Autowired
 	private TaskScheduler taskScheduler;
 
+	/**
+	 * 文章内容发生变化后，最多延迟多久才能被查询到
+	 * 
+	 * @since 6.7
+	 */
+	private long refreshDelayMillis = 500;
+	/**
+	 * 点击数的更新会被合并，最多延迟多久写入索引
+	 * 
+	 * @since 6.7
+	 */
+	private long hitsFlushDelayMillis = 30000;
+	private IndexRefresher refresher;
+	/**
+	 * 等待写入索引的点击数，key为文章id，value为文章当前点击数
+	 */
+	private final Map<Integer, Integer> pendingHits = new ConcurrentHashMap<>();
+	private final AtomicBoolean hitsFlushScheduled = new AtomicBoolean();
+
+	/**
+	 * 查询缓存最多缓存的查询数目，如果小于1，则使用lucene默认的查询缓存以及策略
+	 * 
+	 * @since 6.7
+	 */
+	private int queryCacheSize = 1000;
+	/**
+	 * 查询缓存最多占用的内存
+	 * 
+	 * @since 6.7
+	 */
+	private long queryCacheMaxRamMB = 16;
+	private LRUQueryCache queryCache;
+	private final FilterCachingPolicy queryCachingPolicy = new FilterCachingPolicy(
+			Set.of(PRIVATE, LOCKED, SPACE_ID, FROM));
+
+	/**
+	 * 并行搜索各个段的线程数，如果小于2，则在查询线程中依次搜索各个段
+	 * 
+	 * @since 6.7
+	 */
+	private int searchThreads = Runtime.getRuntime().availableProcessors() / 2;
+	/**
+	 * 每个分片最少包含的文档数，文档数较少的段会被合并到同一个分片中搜索
+	 * 
+	 * @since 6.7
+	 */
+	private int minDocsPerSlice = 10000;
+	private ExecutorService searchExecutor;
+
+	/**
+	 * 检查是否需要合并索引的周期
+	 * 
+	 * @since 6.7
+	 */
+	private int mergeSchedulePeriodSec = 3600;
+	/**
+	 * 小段(文档数不到合并后每个段的一半)的数目超过该值时合并索引，合并后的段数为能够并行搜索的分片数，没有开启并行搜索时为1；
+	 * 同时也是写入时每层允许的段数，因此正常写入时小段的数目不会超过该值
+	 * 
+	 * @since 6.7
+	 */
+	private int maxSegmentCount = 4;
+	/**
+	 * 已删除文档的比例超过该值时，合并掉已删除的文档
+	 * 
+	 * @since 6.7
+	 */
+	private double maxDeletedRatio = 0.1D;
+
 	static {
 		FileUtils.forceMkdir(INDEX_DIR);
 	}
 
+	/**
+	 * 尚未被处理的文章变更，key为文章id，value为true时增加|更新索引，为false时删除索引
+	 * <p>
+	 * 为null时说明写线程中没有等待处理的变更集
+	 * </p>
+	 * 
+	 * @since 6.7
+	 */
+	private Map<Integer, Boolean> changes;
+
+	/**
+	 * 用于并行构建文档
+	 * 
+	 * @since 6.7
+	 */
+	private final ExecutorService buildExecutor = Executors
+			.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
 	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MICROSECONDS,
 			new LinkedBlockingQueue<>()) {
 
@@ -209,6 +442,9 @@ public abstract class ArticleIndexer implements InitializingBean {
 
 	/**
 	 * 构造器
+	 * <p>
+	 * 索引将会在{@link #afterPropertiesSet()}中被打开，此时{@link #setUseRAMDirectory(boolean)}已经生效
+	 * </p>
 	 * 
 	 * @param analyzer
 	 *            分析器
@@ -217,19 +453,7 @@ public abstract class ArticleIndexer implements InitializingBean {
 	 * 
 	 */
 	public ArticleIndexer(Analyzer analyzer) throws IOException {
-		this.dir = useRAMDirectory ? new RAMDirectory() : FSDirectory.open(INDEX_DIR);
 		this.analyzer = analyzer;
-		IndexWriterConfig config = new IndexWriterConfig(analyzer);
-		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
-		try {
-			oriWriter = new IndexWriter(dir, config);
-			oriWriter.commit();
-		} catch (IOException e) {
-			throw new SystemException(e.getMessage(), e);
-		}
-		searcherManager = new SearcherManager(oriWriter, new SearcherFactory());
-		reopenThread = new ControlledRealTimeReopenThread<>(oriWriter, searcherManager, 0.5, 0.01);
-		reopenThread.start();
 	}
 
 	@EventListener
@@ -237,28 +461,67 @@ public abstract class ArticleIndexer implements InitializingBean {
 		if (event.getApplicationContext().getParent() != null) {
 			return;
 		}
+		// 写入尚未写入的点击数
+		executor.submit(() -> {
+			flushHits();
+			return null;
+		});
 		executor.shutdown();
 		try {
 			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
 		} catch (InterruptedException e1) {
 			Thread.currentThread().interrupt();
 		}
-		try {
-			reopenThread.close();
-			oriWriter.close();
-			dir.close();
-			searcherManager.close();
-		} catch (AlreadyClosedException | IOException e) {
-			LOGGER.warn(e.getMessage(), e);
+		buildExecutor.shutdownNow();
+		if (searchExecutor != null) {
+			searchExecutor.shutdownNow();
+		}
+		holder.retire(false);
+	}
+
+	/**
+	 * 索引目录下的每个子目录都是一份完整的索引，目录名为创建时的时间戳，只使用最新一份已经提交过的索引
+	 * 
+	 * @return
+	 */
+	private static Path selectIndexDir() {
+		// 删除旧版本直接存放在索引目录下的索引文件
+		FileUtils.quietlyWalk(INDEX_DIR, 1).filter(FileUtils::isRegularFile).forEach(FileUtils::deleteQuietly);
+		List<Path> dirs = FileUtils.quietlyWalk(INDEX_DIR, 1)
+				.filter(path -> !path.equals(INDEX_DIR) && FileUtils.isDirectory(path)
+						&& path.getFileName().toString().matches("\\d+"))
+				.sorted(Comparator.comparingLong(path -> Long.parseLong(path.getFileName().toString())))
+				.collect(Collectors.toList());
+		Path selected = null;
+		for (int i = dirs.size() - 1; i >= 0; i--) {
+			Path dir = dirs.get(i);
+			try (Directory directory = FSDirectory.open(dir)) {
+				if (DirectoryReader.indexExists(directory)) {
+					selected = dir;
+					break;
+				}
+			} catch (IOException e) {
+				LOGGER.warn(e.getMessage(), e);
+			}
 		}
+		Path indexDir = selected == null ? newIndexDir() : selected;
+		// 删除未完成的或者已经被替换的索引
+		dirs.stream().filter(dir -> !dir.equals(indexDir)).forEach(FileUtils::deleteQuietly);
+		return indexDir;
+	}
+
+	private static Path newIndexDir() {
+		Path dir = INDEX_DIR.resolve(String.valueOf(System.currentTimeMillis()));
+		FileUtils.forceMkdir(dir);
+		return dir;
 	}
 
 	protected Document buildDocument(Article article) {
 		Document doc = new Document();
 		doc.add(new StringField(ID, article.getId().toString(), Field.Store.YES));
-		doc.add(new TextField(TITLE, article.getTitle(), Field.Store.YES));
-		doc.add(new TextField(SUMMARY, cleanSummary(article), Field.Store.YES));
-		doc.add(new TextField(CONTENT, cleanContent(article), Field.Store.YES));
+		doc.add(new Field(TITLE, article.getTitle(), TEXT_WITH_OFFSETS));
+		doc.add(new Field(SUMMARY, cleanSummary(article), TEXT_WITH_OFFSETS));
+		doc.add(new Field(CONTENT, cleanContent(article), TEXT_WITH_OFFSETS));
 		Set<Tag> tags = article.getTags();
 		if (!CollectionUtils.isEmpty(tags)) {
 			for (Tag tag : tags) {
@@ -287,6 +550,17 @@ public abstract class ArticleIndexer implements InitializingBean {
 			doc.add(new SortedDocValuesField(LASTMODIFYDATE, new BytesRef(timeToString(lastModifyDate))));
 		}
 		doc.add(new SortedDocValuesField(ID, new BytesRef(article.getId().toString())));
+
+		// 分面统计
+		if (!CollectionUtils.isEmpty(tags)) {
+			for (Tag tag : tags) {
+				doc.add(new SortedSetDocValuesField(FACET_TAG, new BytesRef(tag.getName())));
+			}
+		}
+		doc.add(new SortedDocValuesField(FACET_SPACE, new BytesRef(article.getSpace().getId().toString())));
+		doc.add(new SortedDocValuesField(FACET_MONTH,
+				new BytesRef(MONTH_FORMATTER.format(article.getPubDate().toLocalDateTime()))));
+		doc.add(new SortedDocValuesField(FACET_FROM, new BytesRef(article.getFrom().name())));
 		return doc;
 	}
 
@@ -295,26 +569,19 @@ public abstract class ArticleIndexer implements InitializingBean {
 	}
 
 	/**
-	 * 增加|更新文章索引，如果文章索引存在，则先删除后增加索引
+	 * 增加|更新文章索引，如果文章索引存在，则先删除后增加索引，如果文章不是发布状态，则删除索引
 	 * 
 	 * @param ids
 	 *            要增加|更新索引的文章id
 	 */
 	public synchronized void addOrUpdateDocument(Integer... ids) {
-		executor.submit(() -> {
-			if (Validators.isEmpty(ids)) {
-				return null;
-			}
-			articleDao.selectByIds(List.of(ids)).stream().filter(Article::isPublished).forEach(art -> {
-				try {
-					doDeleteDocument(art.getId());
-					oriWriter.addDocument(buildDocument(art));
-				} catch (IOException e) {
-					throw new SystemException(e.getMessage(), e);
-				}
-			});
-			return null;
-		});
+		if (Validators.isEmpty(ids)) {
+			return;
+		}
+		Map<Integer, Boolean> changes = getChanges();
+		for (Integer id : ids) {
+			changes.put(id, Boolean.TRUE);
+		}
 	}
 
 	/**
@@ -324,17 +591,131 @@ public abstract class ArticleIndexer implements InitializingBean {
 	 *            文章id
 	 */
 	public synchronized void deleteDocument(Integer... ids) {
+		if (Validators.isEmpty(ids)) {
+			return;
+		}
+		Map<Integer, Boolean> changes = getChanges();
+		for (Integer id : ids) {
+			changes.put(id, Boolean.FALSE);
+		}
+	}
+
+	/**
+	 * 获取当前的变更集，如果不存在，则创建一个新的变更集并且提交到写线程中
+	 * 
+	 * @return
+	 */
+	private Map<Integer, Boolean> getChanges() {
+		if (changes == null) {
+			Map<Integer, Boolean> newChanges = new LinkedHashMap<>();
+			changes = newChanges;
+			executor.submit(() -> {
+				applyChanges(newChanges);
+				return null;
+			});
+		}
+		return changes;
+	}
+
+	/**
+	 * 提交一个写任务，在该任务之后的变更会被放到新的变更集中
+	 * 
+	 * @param task
+	 */
+	private void submitBarrier(IndexTask task) {
+		changes = null;
 		executor.submit(() -> {
-			for (Integer id : ids) {
-				doDeleteDocument(id);
-			}
+			task.execute();
 			return null;
 		});
 	}
 
-	private void doDeleteDocument(Integer id) throws IOException {
-		Term term = new Term(ID, id.toString());
-		oriWriter.deleteDocuments(term);
+	private void applyChanges(Map<Integer, Boolean> changeSet) throws IOException {
+		Map<Integer, Boolean> copy;
+		synchronized (this) {
+			if (changes == changeSet) {
+				changes = null;
+			}
+			copy = new LinkedHashMap<>(changeSet);
+		}
+		IndexHolder holder = this.holder;
+		IndexWriter writer = holder.writer;
+		List<Integer> updates = new ArrayList<>();
+		for (Map.Entry<Integer, Boolean> it : copy.entrySet()) {
+			if (it.getValue()) {
+				updates.add(it.getKey());
+			} else {
+				writer.deleteDocuments(new Term(ID, it.getKey().toString()));
+				suggester.remove(it.getKey());
+			}
+		}
+		int limit = getPageSize();
+		for (int i = 0; i < updates.size(); i += limit) {
+			List<Integer> ids = updates.subList(i, Math.min(i + limit, updates.size()));
+			List<Article> articles = articleDao.selectByIds(ids).stream().filter(Article::isPublished)
+					.collect(Collectors.toList());
+			Map<Integer, Document> documents = buildDocuments(articles);
+			for (Integer id : ids) {
+				Term term = new Term(ID, id.toString());
+				Document document = documents.get(id);
+				if (document == null) {
+					writer.deleteDocuments(term);
+					suggester.remove(id);
+				} else {
+					writer.updateDocument(term, document);
+				}
+			}
+			articles.forEach(holder::updateWatermark);
+			articles.forEach(suggester::put);
+		}
+		if (!copy.isEmpty()) {
+			refresher.requestRefresh();
+		}
+		if (relatedCache != null) {
+			invalidateRelated(copy.keySet());
+			scheduleRelated(updates);
+		}
+	}
+
+	/**
+	 * 在构建文档的线程池中并行构建文档
+	 * 
+	 * @param articles
+	 * @return key为文章id
+	 */
+	private Map<Integer, Document> buildDocuments(List<Article> articles) {
+		if (articles.isEmpty()) {
+			return Map.of();
+		}
+		List<CompletableFuture<Document>> futures = articles.stream()
+				.map(article -> CompletableFuture.supplyAsync(() -> buildDocument(article), buildExecutor))
+				.collect(Collectors.toList());
+		Map<Integer, Document> documents = new LinkedHashMap<>();
+		for (int i = 0; i < articles.size(); i++) {
+			documents.put(articles.get(i).getId(), futures.get(i).join());
+		}
+		return documents;
+	}
+
+	/**
+	 * 查询匹配的所有文章id
+	 * 
+	 * @param query
+	 * @return
+	 * @throws IOException
+	 */
+	private Set<Integer> queryIds(Query query) throws IOException {
+		return search(true, (holder, searcher) -> {
+			TotalHitCountCollector counter = new TotalHitCountCollector();
+			searcher.search(query, counter);
+			Set<Integer> ids = new HashSet<>();
+			if (counter.getTotalHits() > 0) {
+				for (ScoreDoc scoreDoc : searcher.search(query, counter.getTotalHits()).scoreDocs) {
+					ids.add(readId(searcher.getIndexReader(), scoreDoc.doc));
+				}
+			}
+			return ids;
+		});
 	}
 
 	/**
@@ -345,136 +726,509 @@ public abstract class ArticleIndexer implements InitializingBean {
 	 * @return 分页内容
 	 */
 	public PageResult<Article> query(ArticleQueryParam param) {
-		IndexSearcher searcher = null;
 		try {
-			searcher = searcherManager.acquire();
-			Sort sort = buildSort(param);
+			return search(false, (holder, searcher) -> doQuery(holder, searcher, param));
+		} catch (IOException e) {
+			throw new SystemException(e.getMessage(), e);
+		}
+	}
 
-			Builder builder = new Builder();
-			Space space = param.getSpace();
-			if (space != null && space.hasId()) {
-				Query query = new TermQuery(new Term(SPACE_ID, space.getId().toString()));
-				builder.add(query, Occur.MUST);
-			}
-			Date begin = param.getBegin();
-			Date end = param.getEnd();
-			boolean dateRangeQuery = begin != null && end != null;
-			if (dateRangeQuery) {
-				TermRangeQuery query = new TermRangeQuery(PUB_DATE, new Term(PUB_DATE, timeToString(begin)).bytes(),
-						new Term(PUB_DATE, timeToString(end)).bytes(), true, true);
-				builder.add(query, Occur.MUST);
-			}
-			if (!param.isQueryPrivate()) {
-				builder.add(new TermQuery(new Term(PRIVATE, "false")), Occur.MUST);
-				builder.add(new TermQuery(new Term(LOCKED, "false")), Occur.MUST);
-			}
-			ArticleFrom from = param.getFrom();
-			if (from != null) {
-				Query query = new TermQuery(new Term(FROM, from.name().toLowerCase()));
-				builder.add(query, Occur.MUST);
-			}
-			if (param.getTag() != null) {
-				builder.add(new TermQuery(new Term(TAG, param.getTag())), Occur.MUST);
-			}
-
-			if (!CollectionUtils.isEmpty(param.getSpaceIds())) {
-				for (Integer id : param.getSpaceIds()) {
-					builder.add(new TermQuery(new Term(SPACE_ID, String.valueOf(id))), Occur.SHOULD);
-				}
+	private PageResult<Article> doQuery(IndexHolder holder, IndexSearcher searcher, ArticleQueryParam param)
+			throws IOException {
+		ArticleSearchCache.Generation generation = new ArticleSearchCache.Generation(holder.seq,
+				((DirectoryReader) searcher.getIndexReader()).getVersion());
+		if (searchCache != null) {
+			Optional<ArticleSearchCache.Entry> cached = searchCache.get(param, generation);
+			if (cached.isPresent()) {
+				return fromCache(param, cached.get());
 			}
-
-			Optional<Query> optionalMultiFieldQuery = param.hasQuery() ? buildMultiFieldQuery(param.getQuery())
-					: Optional.empty();
-			optionalMultiFieldQuery.ifPresent(query -> builder.add(query, Occur.MUST));
-			Query query = builder.build();
-
-			TopDocs tds = searcher.search(query, MAX_RESULTS, sort);
-			int total = tds.totalHits;
-			int offset = param.getOffset();
-			Map<Integer, Document> datas = new LinkedHashMap<>();
-			if (offset < total) {
-				ScoreDoc[] docs = tds.scoreDocs;
-				int last = offset + param.getPageSize();
-				for (int i = offset; i < Math.min(Math.min(last, total), MAX_RESULTS); i++) {
-					int docId = docs[i].doc;
-					Document doc = searcher.doc(docId);
-					datas.put(Integer.parseInt(doc.get(ID)), doc);
-				}
+		}
+		Sort sort = buildSort(param);
+
+		Builder builder = buildFilters(param);
+
+		Optional<Query> optionalMultiFieldQuery = param.hasQuery() ? buildMultiFieldQuery(param.getQuery())
+				: Optional.empty();
+		optionalMultiFieldQuery.ifPresent(query -> builder.add(query, Occur.MUST));
+		Query query = builder.build();
+
+		int pageSize = Math.max(1, param.getPageSize());
+		ScoreDoc[] hits;
+		int total;
+		String nextCursor = null;
+		boolean cursorPaging = param.getCursor() != null;
+		if (cursorPaging) {
+			FieldDoc after = decodeCursor(param.getCursor(), sort).orElse(null);
+			TopDocs tds = after == null ? searcher.search(query, pageSize, sort)
+					: searcher.searchAfter(after, query, pageSize, sort);
+			hits = tds.scoreDocs;
+			total = tds.totalHits;
+			if (hits.length == pageSize) {
+				nextCursor = encodeCursor((FieldDoc) hits[hits.length - 1]);
 			}
-			List<Article> articles = selectByIds(datas.keySet());
-			if (param.isHighlight() && optionalMultiFieldQuery.isPresent()) {
+		} else {
+			int offset = param.getOffset();
+			// 只收集当前页以及之前的结果
+			int n = Math.max(1, Math.min(offset + pageSize, maxResults));
+			TopDocs tds = searcher.search(query, n, sort);
+			ScoreDoc[] docs = tds.scoreDocs;
+			hits = offset < docs.length ? Arrays.copyOfRange(docs, offset, docs.length) : new ScoreDoc[0];
+			total = Math.min(maxResults, tds.totalHits);
+		}
+
+		// 通过DocValues获取文章id，不载入存储的字段
+		IndexReader reader = searcher.getIndexReader();
+		Map<Integer, Integer> docIds = new LinkedHashMap<>();
+		for (ScoreDoc hit : hits) {
+			docIds.put(readId(reader, hit.doc), hit.doc);
+		}
+		List<Article> articles = selectByIds(docIds.keySet());
+		ArticleSearchCache.Entry entry = new ArticleSearchCache.Entry(generation, new ArrayList<>(docIds.keySet()),
+				total, nextCursor);
+		if (param.isHighlight() && optionalMultiFieldQuery.isPresent()) {
+			Query highlightQuery = optionalMultiFieldQuery.get();
+			List<String[]> originals = articles.stream()
+					.map(article -> new String[] { article.getTitle(), article.getSummary() })
+					.collect(Collectors.toList());
+			if (offsetsHighlight) {
+				doOffsetsHighlight(searcher, highlightQuery, articles, docIds);
+			} else {
 				for (Article article : articles) {
-					doHightlight(article, datas.get(article.getId()), optionalMultiFieldQuery.get());
-					article.setContent(null);
+					// 只为需要高亮的文章载入存储的字段
+					Document doc = searcher.doc(docIds.get(article.getId()), HIGHLIGHT_FIELDS);
+					doHightlight(article, doc, highlightQuery);
 				}
 			}
-			return new PageResult<>(param, Math.min(MAX_RESULTS, total), articles);
-		} catch (IOException e) {
-			throw new SystemException(e.getMessage(), e);
-		} finally {
-			try {
-				if (searcher != null) {
-					searcherManager.release(searcher);
-					searcher = null;
-				}
-			} catch (Exception e) {
-				LOGGER.error(e.getMessage(), e);
+			for (int i = 0; i < articles.size(); i++) {
+				Article article = articles.get(i);
+				article.setContent(null);
+				entry.addHighlight(article, originals.get(i)[0], originals.get(i)[1]);
 			}
 		}
-	}
-
-	private List<Article> selectByIds(Collection<Integer> ids) {
-		if (CollectionUtils.isEmpty(ids)) {
-			return new ArrayList<>();
+		if (searchCache != null) {
+			searchCache.put(param, entry);
 		}
-		List<Article> articles = articleDao.selectPageByIds(ids);
-		if (articles.isEmpty()) {
-			return new ArrayList<>();
+		if (cursorPaging) {
+			return new CursorPageResult<>(param, total, articles, nextCursor);
 		}
-		Map<Integer, Article> map = articles.stream().collect(Collectors.toMap(Article::getId, article -> article));
-		return ids.stream().map(map::get).filter(Objects::nonNull).collect(Collectors.toList());
+		return new PageResult<>(param, total, articles);
 	}
 
-	protected Optional<Query> buildMultiFieldQuery(String query) {
-		String escaped = MultiFieldQueryParser.escape(query.trim());
-		MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[] { TAG, TITLE, ALIAS, SUMMARY, CONTENT },
-				analyzer, qboostMap);
-		parser.setAutoGeneratePhraseQueries(true);
-		parser.setPhraseSlop(0);
+	/**
+	 * 分面统计
+	 * <p>
+	 * 统计符合查询参数的文章的标签、空间、发布年月以及来源，如果查询参数中包含了查询语句，则只统计匹配的文章。
+	 * 分页、排序以及高亮参数会被忽略
+	 * </p>
+	 * <p>
+	 * <b>重建索引之前建立的文档没有分面数据，不会被统计到各个维度中</b>
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param param
+	 *            查询参数
+	 * @return 分面统计结果
+	 */
+	public ArticleFacets facets(ArticleQueryParam param) {
 		try {
-			return Optional.of(parser.parse(escaped));
-		} catch (ParseException e) {
-			LOGGER.debug("无法解析输入的查询表达式:" + escaped + ":" + e.getMessage(), e);
-			return Optional.empty();
+			return search(false, (holder, searcher) -> {
+				Builder builder = buildFilters(param);
+				Optional<Query> optionalMultiFieldQuery = param.hasQuery() ? buildMultiFieldQuery(param.getQuery())
+						: Optional.empty();
+				builder.add(optionalMultiFieldQuery.orElseGet(MatchAllDocsQuery::new), Occur.MUST);
+				FacetCollector collector = new FacetCollector();
+				searcher.search(builder.build(), collector);
+				collector.flush();
+				return collector.toFacets();
+			});
+		} catch (IOException e) {
+			throw new SystemException(e.getMessage(), e);
 		}
 	}
 
-	protected Sort buildSort(ArticleQueryParam param) {
-		List<SortField> fields = new ArrayList<>();
-		if (!param.isIgnoreLevel()) {
-			fields.add(new SortField(LEVEL, Type.INT, true));
+	/**
+	 * 根据查询参数构建过滤条件(空间、日期、私人、来源以及标签)
+	 * 
+	 * @param param
+	 * @return
+	 */
+	private Builder buildFilters(ArticleQueryParam param) {
+		// 过滤条件不参与评分，可以被查询缓存
+		Builder builder = new Builder();
+		Space space = param.getSpace();
+		if (space != null && space.hasId()) {
+			Query query = new TermQuery(new Term(SPACE_ID, space.getId().toString()));
+			builder.add(query, Occur.FILTER);
 		}
-		ArticleQueryParam.Sort psort = param.getSort();
-		if (psort == null) {
-			fields.add(SortField.FIELD_SCORE);
-		} else {
-			switch (param.getSort()) {
-			case HITS:
-				fields.add(new SortField(HITS, Type.INT, true));
-				break;
-			case PUBDATE:
-				fields.add(new SortField(PUB_DATE, SortField.Type.STRING, true));
-				break;
-			case LASTMODIFYDATE:
-				fields.add(new SortField(LASTMODIFYDATE, SortField.Type.STRING, true));
-				fields.add(new SortField(PUB_DATE, SortField.Type.STRING, true));
-				break;
-			default:
-				break;
-			}
-			fields.add(new SortField(ID, SortField.Type.STRING, true));
+		Date begin = param.getBegin();
+		Date end = param.getEnd();
+		boolean dateRangeQuery = begin != null && end != null;
+		if (dateRangeQuery) {
+			TermRangeQuery query = new TermRangeQuery(PUB_DATE, new Term(PUB_DATE, timeToString(begin)).bytes(),
+					new Term(PUB_DATE, timeToString(end)).bytes(), true, true);
+			builder.add(query, Occur.FILTER);
 		}
-		return new Sort(fields.toArray(new SortField[] {}));
+		if (!param.isQueryPrivate()) {
+			builder.add(VISIBLE, Occur.FILTER);
+		}
+		ArticleFrom from = param.getFrom();
+		if (from != null) {
+			Query query = new TermQuery(new Term(FROM, from.name().toLowerCase()));
+			builder.add(query, Occur.FILTER);
+		}
+		if (param.getTag() != null) {
+			builder.add(new TermQuery(new Term(TAG, param.getTag())), Occur.FILTER);
+		}
+
+		if (!CollectionUtils.isEmpty(param.getSpaceIds())) {
+			Builder spaces = new Builder();
+			param.getSpaceIds().stream().sorted()
+					.forEach(id -> spaces.add(new TermQuery(new Term(SPACE_ID, String.valueOf(id))), Occur.SHOULD));
+			builder.add(spaces.build(), Occur.FILTER);
+		}
+		return builder;
+	}
+
+	/**
+	 * 前缀搜索建议，包括文章标题、别名以及标签
+	 * <p>
+	 * 建议保存在内存中，同索引一样通过写线程更新，查询时不会访问数据库以及索引
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param prefix
+	 *            前缀，忽略大小写
+	 * @param space
+	 *            空间，如果为null，查询所有空间
+	 * @param queryPrivate
+	 *            是否包含私人以及被锁保护的文章
+	 * @param limit
+	 *            最大数目
+	 * @return
+	 */
+	public List<ArticleSuggestion> suggest(String prefix, Space space, boolean queryPrivate, int limit) {
+		if (prefix == null) {
+			return List.of();
+		}
+		return suggester.suggest(prefix, space, queryPrivate, limit);
+	}
+
+	/**
+	 * 从数据库中载入所有已经发布的文章的搜索建议
+	 */
+	private void loadSuggester() {
+		ArticleSuggester loaded = new ArticleSuggester();
+		Transactions.executeInReadOnlyTransaction(platformTransactionManager, status -> {
+			int offset = 0;
+			int limit = getPageSize();
+			List<Article> articles;
+			while (!(articles = articleDao.selectPublishedPage(offset, limit)).isEmpty()) {
+				offset += limit;
+				articles.forEach(loaded::put);
+			}
+			return null;
+		});
+		suggester = loaded;
+	}
+
+	/**
+	 * 获取某篇文章的相关文章
+	 * <p>
+	 * 相关文章在索引的写线程中计算，如果还没有计算，那么返回空集合并且提交计算任务，该方法不会执行任何查询
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param id
+	 *            文章id
+	 * @param limit
+	 *            最大数目
+	 * @return 相关文章的id，按照相关度降序排列，只包含非私人并且没有锁保护的文章
+	 */
+	public List<Integer> getRelatedIds(Integer id, int limit) {
+		if (relatedCache == null || limit < 1) {
+			return List.of();
+		}
+		List<Integer> ids = relatedCache.getIfPresent(id);
+		if (ids == null) {
+			scheduleRelated(List.of(id));
+			return List.of();
+		}
+		return ids.size() <= limit ? ids : ids.subList(0, limit);
+	}
+
+	/**
+	 * 删除这些文章以及包含了这些文章的相关文章
+	 * 
+	 * @param ids
+	 */
+	private void invalidateRelated(Collection<Integer> ids) {
+		relatedCache.invalidateAll(ids);
+		relatedCache.asMap().values().removeIf(related -> related.stream().anyMatch(ids::contains));
+	}
+
+	private void scheduleRelated(Collection<Integer> ids) {
+		List<Integer> toCompute = ids.stream().filter(relatedPending::add).collect(Collectors.toList());
+		if (!toCompute.isEmpty()) {
+			executor.submit(() -> {
+				computeRelated(toCompute);
+				return null;
+			});
+		}
+	}
+
+	private void computeRelated(List<Integer> ids) throws IOException {
+		search(true, (holder, searcher) -> {
+			for (Integer id : ids) {
+				relatedPending.remove(id);
+				TopDocs tds = searcher.search(new TermQuery(new Term(ID, id.toString())), 1);
+				if (tds.totalHits == 0) {
+					relatedCache.invalidate(id);
+					continue;
+				}
+				relatedCache.put(id, List.copyOf(searchRelated(searcher, id, tds.scoreDocs[0].doc)));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 根据标题、标签以及摘要中出现最多的词查询同一空间下的相关文章
+	 * 
+	 * @param searcher
+	 * @param id
+	 * @param docId
+	 * @return
+	 * @throws IOException
+	 */
+	private List<Integer> searchRelated(IndexSearcher searcher, Integer id, int docId) throws IOException {
+		Document doc = searcher.doc(docId, RELATED_FIELDS);
+		Map<String, Integer> frequencies = new HashMap<>();
+		collectTerms(TITLE, doc.get(TITLE), frequencies);
+		for (String tag : doc.getValues(TAG)) {
+			collectTerms(TAG, tag, frequencies);
+		}
+		collectTerms(SUMMARY, doc.get(SUMMARY), frequencies);
+		if (frequencies.isEmpty()) {
+			return List.of();
+		}
+
+		Builder like = new Builder();
+		frequencies.entrySet().stream().sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+				.limit(MAX_RELATED_TERMS).map(Map.Entry::getKey).forEach(term -> {
+					like.add(new BoostQuery(new TermQuery(new Term(TAG, term)), 3F), Occur.SHOULD);
+					like.add(new BoostQuery(new TermQuery(new Term(TITLE, term)), 2F), Occur.SHOULD);
+					like.add(new TermQuery(new Term(CONTENT, term)), Occur.SHOULD);
+				});
+		like.setMinimumNumberShouldMatch(1);
+
+		Builder builder = new Builder();
+		builder.add(like.build(), Occur.MUST);
+		builder.add(VISIBLE, Occur.FILTER);
+		builder.add(new TermQuery(new Term(ID, id.toString())), Occur.MUST_NOT);
+		IndexReader reader = searcher.getIndexReader();
+		readSorted(reader, docId, FACET_SPACE)
+				.ifPresent(spaceId -> builder.add(new TermQuery(new Term(SPACE_ID, spaceId)), Occur.FILTER));
+
+		List<Integer> related = new ArrayList<>();
+		for (ScoreDoc scoreDoc : searcher.search(builder.build(), relatedSize).scoreDocs) {
+			related.add(readId(reader, scoreDoc.doc));
+		}
+		return related;
+	}
+
+	private void collectTerms(String field, String text, Map<String, Integer> frequencies) throws IOException {
+		if (text == null) {
+			return;
+		}
+		try (TokenStream ts = analyzer.tokenStream(field, text)) {
+			CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+			ts.reset();
+			while (ts.incrementToken()) {
+				// 单个字符的词过于宽泛
+				if (term.length() > 1) {
+					frequencies.merge(term.toString(), 1, Integer::sum);
+				}
+			}
+			ts.end();
+		}
+	}
+
+	private PageResult<Article> fromCache(ArticleQueryParam param, ArticleSearchCache.Entry entry) {
+		List<Article> articles = selectByIds(entry.getIds());
+		articles.forEach(entry::applyHighlight);
+		if (param.getCursor() != null) {
+			return new CursorPageResult<>(param, entry.getTotal(), articles, entry.getNextCursor());
+		}
+		return new PageResult<>(param, entry.getTotal(), articles);
+	}
+
+	private static Integer readId(IndexReader reader, int doc) throws IOException {
+		List<LeafReaderContext> leaves = reader.leaves();
+		LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+		SortedDocValues ids = DocValues.getSorted(leaf.reader(), ID);
+		return Integer.parseInt(ids.get(doc - leaf.docBase).utf8ToString());
+	}
+
+	private static Optional<String> readSorted(IndexReader reader, int doc, String field) throws IOException {
+		List<LeafReaderContext> leaves = reader.leaves();
+		LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+		SortedDocValues values = DocValues.getSorted(leaf.reader(), field);
+		int ord = values.getOrd(doc - leaf.docBase);
+		return ord < 0 ? Optional.empty() : Optional.of(values.lookupOrd(ord).utf8ToString());
+	}
+
+	/**
+	 * 将最后一条结果的排序值编码为游标
+	 * <p>
+	 * 排序的最后一个字段总是文章id，因此排序值能够唯一确定一篇文章，游标中不包含会随着合并以及重新打开而变化的docid
+	 * </p>
+	 * 
+	 * @param last
+	 * @return
+	 */
+	private static String encodeCursor(FieldDoc last) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			dos.writeByte(last.fields.length);
+			for (Object field : last.fields) {
+				if (field == null) {
+					dos.writeByte(0);
+				} else if (field instanceof Integer) {
+					dos.writeByte(1);
+					dos.writeInt((Integer) field);
+				} else if (field instanceof Float) {
+					dos.writeByte(2);
+					dos.writeFloat((Float) field);
+				} else if (field instanceof BytesRef) {
+					BytesRef bytes = (BytesRef) field;
+					dos.writeByte(3);
+					dos.writeShort(bytes.length);
+					dos.write(bytes.bytes, bytes.offset, bytes.length);
+				} else {
+					throw new SystemException("无法编码的排序值:" + field);
+				}
+			}
+		} catch (IOException e) {
+			throw new SystemException(e.getMessage(), e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bos.toByteArray());
+	}
+
+	/**
+	 * 解析游标
+	 * 
+	 * @param cursor
+	 * @param sort
+	 *            当前的排序，游标中排序值的数目必须与之相同
+	 * @return 如果游标无效，返回{@link Optional#empty()}
+	 */
+	private static Optional<FieldDoc> decodeCursor(String cursor, Sort sort) {
+		try (DataInputStream dis = new DataInputStream(
+				new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+			int size = dis.readByte();
+			if (size != sort.getSort().length) {
+				return Optional.empty();
+			}
+			Object[] fields = new Object[size];
+			float score = Float.NaN;
+			for (int i = 0; i < size; i++) {
+				switch (dis.readByte()) {
+				case 0:
+					fields[i] = null;
+					break;
+				case 1:
+					fields[i] = dis.readInt();
+					break;
+				case 2:
+					score = dis.readFloat();
+					fields[i] = score;
+					break;
+				case 3:
+					byte[] bytes = new byte[dis.readUnsignedShort()];
+					dis.readFully(bytes);
+					fields[i] = new BytesRef(bytes);
+					break;
+				default:
+					return Optional.empty();
+				}
+				if (!matchSortType(sort.getSort()[i], fields[i])) {
+					return Optional.empty();
+				}
+			}
+			// 排序值相同的只有游标所指的文章本身，最大的docid使其被跳过
+			return Optional.of(new FieldDoc(Integer.MAX_VALUE, score, fields));
+		} catch (IOException | IllegalArgumentException e) {
+			LOGGER.debug("无效的游标:" + cursor + ":" + e.getMessage(), e);
+			return Optional.empty();
+		}
+	}
+
+	private static boolean matchSortType(SortField sortField, Object value) {
+		switch (sortField.getType()) {
+		case SCORE:
+			return value instanceof Float;
+		case INT:
+			return value instanceof Integer;
+		case STRING:
+			return value == null || value instanceof BytesRef;
+		default:
+			return false;
+		}
+	}
+
+	private List<Article> selectByIds(Collection<Integer> ids) {
+		if (CollectionUtils.isEmpty(ids)) {
+			return new ArrayList<>();
+		}
+		List<Article> articles = articleDao.selectPageByIds(ids);
+		if (articles.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<Integer, Article> map = articles.stream().collect(Collectors.toMap(Article::getId, article -> article));
+		return ids.stream().map(map::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	protected Optional<Query> buildMultiFieldQuery(String query) {
+		String escaped = MultiFieldQueryParser.escape(query.trim());
+		MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[] { TAG, TITLE, ALIAS, SUMMARY, CONTENT },
+				analyzer, qboostMap);
+		parser.setAutoGeneratePhraseQueries(true);
+		parser.setPhraseSlop(0);
+		try {
+			return Optional.of(parser.parse(escaped));
+		} catch (ParseException e) {
+			LOGGER.debug("无法解析输入的查询表达式:" + escaped + ":" + e.getMessage(), e);
+			return Optional.empty();
+		}
+	}
+
+	protected Sort buildSort(ArticleQueryParam param) {
+		List<SortField> fields = new ArrayList<>();
+		if (!param.isIgnoreLevel()) {
+			fields.add(new SortField(LEVEL, Type.INT, true));
+		}
+		ArticleQueryParam.Sort psort = param.getSort();
+		if (psort == null) {
+			fields.add(SortField.FIELD_SCORE);
+		} else {
+			switch (param.getSort()) {
+			case HITS:
+				fields.add(new SortField(HITS, Type.INT, true));
+				break;
+			case PUBDATE:
+				fields.add(new SortField(PUB_DATE, SortField.Type.STRING, true));
+				break;
+			case LASTMODIFYDATE:
+				fields.add(new SortField(LASTMODIFYDATE, SortField.Type.STRING, true));
+				fields.add(new SortField(PUB_DATE, SortField.Type.STRING, true));
+				break;
+			default:
+				break;
+			}
+		}
+		// 文章id作为最后的排序字段，使排序结果稳定并且游标不依赖docid
+		fields.add(new SortField(ID, SortField.Type.STRING, true));
+		return new Sort(fields.toArray(new SortField[] {}));
 	}
 
 	/**
@@ -515,6 +1269,50 @@ public abstract class ArticleIndexer implements InitializingBean {
 
 	}
 
+	/**
+	 * 通过索引中记录的偏移量高亮标题和摘要，无需重新分词
+	 * <p>
+	 * 如果索引中没有记录偏移量(例如升级前建立的索引)，会自动退回到分词的方式，重建索引后生效
+	 * </p>
+	 * 
+	 * @param searcher
+	 * @param query
+	 * @param articles
+	 * @param docIds
+	 *            key:文章id,value:文档id
+	 * @throws IOException
+	 */
+	private void doOffsetsHighlight(IndexSearcher searcher, Query query, List<Article> articles,
+			Map<Integer, Integer> docIds) throws IOException {
+		if (articles.isEmpty()) {
+			return;
+		}
+		int[] docs = articles.stream().mapToInt(article -> docIds.get(article.getId())).toArray();
+		Map<String, String[]> fragments = new OffsetsHighlighter(searcher).highlightFields(
+				new String[] { TITLE, SUMMARY, CONTENT }, query, docs, new int[] { 1, 1, 1 });
+		String[] titles = fragments.get(TITLE);
+		String[] summaries = fragments.get(SUMMARY);
+		String[] contents = fragments.get(CONTENT);
+		for (int i = 0; i < articles.size(); i++) {
+			Article article = articles.get(i);
+			if (titles[i] != null) {
+				article.setTitle(titles[i]);
+			}
+			String summary = summaries[i] == null ? contents[i] : summaries[i];
+			if (summary != null) {
+				article.setSummary(summary);
+			}
+			// 标签很短，并且需要保留原来的大小写，仍然通过分词高亮
+			Set<Tag> tags = article.getTags();
+			if (tags != null) {
+				for (Tag tag : tags) {
+					getHightlight(new Highlighter(tagFormatter, new QueryScorer(query)), TAG, tag.getName())
+							.ifPresent(tag::setName);
+				}
+			}
+		}
+	}
+
 	private Optional<String> getHightlight(Highlighter highlighter, String fieldName, String text) {
 		try {
 			return Optional.ofNullable(highlighter.getBestFragment(analyzer, fieldName, text));
@@ -571,63 +1369,265 @@ public abstract class ArticleIndexer implements InitializingBean {
 		});
 	}
 
+	/**
+	 * 标签变更，更新词库并且只重建受影响的文章的索引
+	 * <p>
+	 * 受影响的文章是指在变更前的索引中标签或者内容能够匹配到变更标签的文章
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param removeTags
+	 *            被删除的标签名
+	 * @param addTags
+	 *            新增的标签名
+	 */
+	public synchronized void changeTags(Collection<String> removeTags, Collection<String> addTags) {
+		submitBarrier(() -> {
+			Builder builder = new Builder();
+			for (String tag : removeTags) {
+				buildMultiFieldQuery(tag).ifPresent(query -> builder.add(query, Occur.SHOULD));
+			}
+			for (String tag : addTags) {
+				buildMultiFieldQuery(tag).ifPresent(query -> builder.add(query, Occur.SHOULD));
+			}
+			// 通过变更前的分词找出可能受影响的文章
+			Set<Integer> ids = queryIds(builder.build());
+			boolean changed = false;
+			if (!removeTags.isEmpty()) {
+				changed |= doRemoveTags(removeTags.toArray(new String[removeTags.size()]));
+			}
+			if (!addTags.isEmpty()) {
+				changed |= doAddTags(addTags.toArray(new String[addTags.size()]));
+			}
+			// 重命名以及删除标签时文章的标签发生了变化，总是需要重建索引；只是新增标签并且分词结果没有变化时才能跳过
+			if (removeTags.isEmpty() && !changed) {
+				return;
+			}
+			if (searchCache != null) {
+				searchCache.invalidateAll();
+			}
+			addOrUpdateDocument(ids.toArray(new Integer[ids.size()]));
+		});
+	}
+
+	/**
+	 * 重建某个空间下所有文章的索引
+	 * 
+	 * @since 6.7
+	 * @param spaceId
+	 *            空间id
+	 */
+	public synchronized void reindexSpace(Integer spaceId) {
+		submitBarrier(() -> {
+			Set<Integer> ids = queryIds(new TermQuery(new Term(SPACE_ID, spaceId.toString())));
+			addOrUpdateDocument(ids.toArray(new Integer[ids.size()]));
+		});
+	}
+
 	/**
 	 * 更新文章点击数
+	 * <p>
+	 * <b>自6.7开始，点击数会被合并，在{@link #setHitsFlushDelayMillis(long)}之后一次性写入索引</b>
+	 * </p>
 	 * 
 	 * @since 6.4
 	 * @param hitsMap
 	 *            key文章ID value文章<b>当前</b>点击数
 	 */
-	public synchronized void updateHits(Map<Integer, Integer> hitsMap) {
-		executor.submit(() -> {
-			for (Map.Entry<Integer, Integer> it : hitsMap.entrySet()) {
-				Term term = new Term(ID, it.getKey().toString());
-				oriWriter.updateNumericDocValue(term, HITS, it.getValue());
+	public void updateHits(Map<Integer, Integer> hitsMap) {
+		if (hitsMap.isEmpty()) {
+			return;
+		}
+		pendingHits.putAll(hitsMap);
+		if (hitsFlushScheduled.compareAndSet(false, true)) {
+			taskScheduler.schedule(() -> executor.submit(() -> {
+				flushHits();
+				return null;
+			}), new Date(System.currentTimeMillis() + hitsFlushDelayMillis));
+		}
+	}
+
+	private void flushHits() throws IOException {
+		// 先重置标记，写入过程中更新的点击数会在下一批中写入
+		hitsFlushScheduled.set(false);
+		IndexWriter writer = holder.writer;
+		boolean updated = false;
+		for (Integer id : new ArrayList<>(pendingHits.keySet())) {
+			Integer hits = pendingHits.remove(id);
+			if (hits != null) {
+				writer.updateNumericDocValue(new Term(ID, id.toString()), HITS, hits);
+				updated = true;
 			}
-			return null;
-		});
+		}
+		if (updated) {
+			refresher.requestRefresh();
+		}
 	}
 
 	/**
-	 * 重建索引
+	 * 在当前索引中查询
+	 * <p>
+	 * 查询期间持有索引的引用，重建索引时被替换的索引在查询结束之后才会被关闭；
+	 * 如果仍然遇到了已经关闭的索引，那么在新的索引中重试一次
+	 * </p>
 	 * 
+	 * @param refresh
+	 *            查询之前是否刷新IndexSearcher
+	 * @param callback
+	 * @return
+	 * @throws IOException
 	 */
-	public synchronized void rebuildIndex() {
-		executor.submit(() -> {
+	private <T> T search(boolean refresh, SearchCallback<T> callback) throws IOException {
+		for (int attempt = 0;; attempt++) {
+			IndexHolder current = acquireHolder();
 			try {
-				oriWriter.deleteAll();
-			} catch (IOException e) {
-				throw new SystemException(e.getMessage(), e);
+				if (refresh) {
+					current.searcherManager.maybeRefreshBlocking();
+				}
+				IndexSearcher searcher = current.searcherManager.acquire();
+				try {
+					return callback.search(current, searcher);
+				} finally {
+					current.searcherManager.release(searcher);
+				}
+			} catch (AlreadyClosedException e) {
+				if (attempt > 0 || current == holder) {
+					throw e;
+				}
+			} finally {
+				current.decRef();
 			}
-			long start = System.currentTimeMillis();
+		}
+	}
+
+	private IndexHolder acquireHolder() {
+		while (true) {
+			IndexHolder current = holder;
+			if (current.tryIncRef()) {
+				return current;
+			}
+			if (current == holder) {
+				throw new AlreadyClosedException("索引已经关闭");
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface SearchCallback<T> {
+		T search(IndexHolder holder, IndexSearcher searcher) throws IOException;
+	}
+
+	/**
+	 * 重建索引
+	 * <p>
+	 * 索引会被重建到一个新的索引中，完成后替换当前索引
+	 * </p>
+	 */
+	public synchronized void rebuildIndex() {
+		submitBarrier(this::doRebuildIndex);
+	}
+
+	private void doRebuildIndex() throws IOException {
+		long start = System.currentTimeMillis();
+		IndexHolder current = holder;
+		IndexHolder shadow = new IndexHolder(current.path == null ? null : newIndexDir(), OpenMode.CREATE);
+		ArticleSuggester rebuilt = new ArticleSuggester();
+		try {
 			Transactions.executeInReadOnlyTransaction(platformTransactionManager, status -> {
 				int offset = 0;
 				int limit = getPageSize();
 				List<Article> articles;
-				List<Document> documents = new ArrayList<>();
 				while (!(articles = articleDao.selectPublishedPage(offset, limit)).isEmpty()) {
 					offset += limit;
-					for (Article article : articles) {
-						documents.add(buildDocument(article));
-					}
 					try {
-						oriWriter.addDocuments(documents);
+						shadow.writer.addDocuments(buildDocuments(articles).values());
 					} catch (IOException e) {
 						throw new SystemException(e.getMessage(), e);
 					}
-					documents.clear();
-					articles = null;
+					articles.forEach(shadow::updateWatermark);
+					articles.forEach(rebuilt::put);
 				}
 				return null;
 			});
-			LOGGER.debug("重建索引花费了：" + (System.currentTimeMillis() - start) + "ms");
-			return null;
+			shadow.commit();
+		} catch (IOException | RuntimeException e) {
+			shadow.close();
+			FileUtils.deleteQuietly(shadow.path);
+			throw e;
+		}
+		shadow.searcherManager.maybeRefreshBlocking();
+		holder = shadow;
+		suggester = rebuilt;
+		if (relatedCache != null) {
+			relatedCache.invalidateAll();
+		}
+		// 正在进行的查询结束之后才会关闭并删除
+		current.retire(true);
+		LOGGER.debug("重建索引花费了：" + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * 根据索引提交时记录的水位，只重建在此之后发生变化的文章的索引，同时比较已发布文章和索引中的文章id，补上缺失的文章并删除多余的文章
+	 * <p>
+	 * 如果是内存索引或者索引中没有水位，那么重建全部索引
+	 * </p>
+	 * 
+	 * @since 6.7
+	 */
+	public synchronized void reconcile() {
+		submitBarrier(() -> {
+			IndexHolder current = holder;
+			if (current.path == null || current.committedWatermark == null) {
+				doRebuildIndex();
+				return;
+			}
+			long start = System.currentTimeMillis();
+			Timestamp watermark = new Timestamp(current.committedWatermark);
+			Set<Integer> updates = new HashSet<>();
+			Set<Integer> deletes = new HashSet<>();
+			Transactions.executeInReadOnlyTransaction(platformTransactionManager, status -> {
+				updates.addAll(articleDao.selectPublishedIdsModifiedAfter(watermark));
+				// 文章被删除、转为草稿或者定时发布等操作不会修改文章的修改时间，文章数也可能恰好不变，只能通过比较文章id来找出
+				Set<Integer> published = new HashSet<>(articleDao.selectPublishedIds());
+				Set<Integer> indexed;
+				try {
+					indexed = queryIds(new MatchAllDocsQuery());
+				} catch (IOException e) {
+					throw new SystemException(e.getMessage(), e);
+				}
+				for (Integer id : indexed) {
+					if (!published.contains(id)) {
+						deletes.add(id);
+					}
+				}
+				for (Integer id : published) {
+					if (!indexed.contains(id)) {
+						updates.add(id);
+					}
+				}
+			});
+			deleteDocument(deletes.toArray(new Integer[deletes.size()]));
+			addOrUpdateDocument(updates.toArray(new Integer[updates.size()]));
+			LOGGER.debug("同步索引花费了：" + (System.currentTimeMillis() - start) + "ms，需要更新" + updates.size() + "篇文章，删除"
+					+ deletes.size() + "篇文章");
 		});
 	}
 
-	protected abstract void doRemoveTags(String... tags);
+	/**
+	 * 从词库中删除标签
+	 * 
+	 * @param tags
+	 * @return 分词结果是否发生了变化
+	 */
+	protected abstract boolean doRemoveTags(String... tags);
 
-	protected abstract void doAddTags(String... tags);
+	/**
+	 * 将标签加入词库
+	 * 
+	 * @param tags
+	 * @return 分词结果是否发生了变化
+	 */
+	protected abstract boolean doAddTags(String... tags);
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -640,6 +1640,14 @@ public abstract class ArticleIndexer implements InitializingBean {
 		if (summaryFormatter == null) {
 			summaryFormatter = new DefaultFormatter("lucene-highlight-summary");
 		}
+		if (titlePassageFormatter == null) {
+			titlePassageFormatter = new DefaultPassageFormatter("<b class=\"lucene-highlight-title\">", "</b>", "... ",
+					false);
+		}
+		if (summaryPassageFormatter == null) {
+			summaryPassageFormatter = new DefaultPassageFormatter("<b class=\"lucene-highlight-summary\">", "</b>",
+					"... ", false);
+		}
 		if (markdown2Html == null) {
 			markdown2Html = CommonMarkdown2Html.INSTANCE;
 		}
@@ -648,6 +1656,27 @@ public abstract class ArticleIndexer implements InitializingBean {
 		qboostMap.put(TITLE, boostMap.getOrDefault(TITLE, 7F));
 		qboostMap.put(SUMMARY, boostMap.getOrDefault(SUMMARY, 3F));
 		qboostMap.put(CONTENT, boostMap.getOrDefault(CONTENT, 1F));
+		if (searchCacheSize > 0) {
+			searchCache = new ArticleSearchCache(searchCacheSize);
+		}
+		if (relatedCacheSize > 0 && relatedSize > 0) {
+			relatedCache = Caffeine.newBuilder().maximumSize(relatedCacheSize).build();
+		}
+		if (searchThreads > 1) {
+			searchExecutor = Executors.newFixedThreadPool(searchThreads);
+		}
+		if (queryCacheSize > 0) {
+			// 默认的构造器不会缓存文档数小于10000的段，博客的索引通常只有这样的段
+			queryCache = new LRUQueryCache(queryCacheSize, queryCacheMaxRamMB * 1024 * 1024, leaf -> true);
+		}
+		refresher = new IndexRefresher(taskScheduler, () -> holder.searcherManager, refreshDelayMillis);
+		this.holder = new IndexHolder(useRAMDirectory ? null : selectIndexDir(), OpenMode.CREATE_OR_APPEND);
+		holder.commit();
+		executor.submit(() -> {
+			loadSuggester();
+			return null;
+		});
+
 		// 新增标签
 		addTags(tagDao.selectAll().stream().map(Tag::getName).toArray(String[]::new));
 
@@ -655,15 +1684,281 @@ public abstract class ArticleIndexer implements InitializingBean {
 			commitSchedulePeriodSec = 180;
 		}
 		taskScheduler.scheduleAtFixedRate(this::commit, commitSchedulePeriodSec * 1000L);
+		if (mergeSchedulePeriodSec > 0) {
+			taskScheduler.scheduleAtFixedRate(this::merge, mergeSchedulePeriodSec * 1000L);
+		}
+	}
+
+	private synchronized void merge() {
+		executor.submit(() -> {
+			IndexHolder holder = this.holder;
+			IndexStatistics statistics = search(false, (current, searcher) -> current.statistics(searcher));
+			int targetSegmentCount = targetSegmentCount(statistics.getNumDocs());
+			// 合并后留下的段不会再次触发合并
+			if (statistics.getSmallSegmentCount() > maxSegmentCount) {
+				long start = System.currentTimeMillis();
+				// 不合并为一个段，否则并行搜索只剩下一个分片
+				holder.writer.forceMerge(targetSegmentCount);
+				LOGGER.debug("合并" + statistics.getSegmentCount() + "个段为" + targetSegmentCount + "个段花费了："
+						+ (System.currentTimeMillis() - start) + "ms");
+			} else if (statistics.getDeletedRatio() > maxDeletedRatio) {
+				holder.writer.forceMergeDeletes();
+			} else {
+				return null;
+			}
+			refresher.requestRefresh();
+			return null;
+		});
+	}
+
+	/**
+	 * 合并后的段数，和{@link #slices(List)}能够划分出的分片数一致
+	 * 
+	 * @param numDocs
+	 * @return
+	 */
+	private int targetSegmentCount(int numDocs) {
+		if (searchExecutor == null) {
+			return 1;
+		}
+		return Math.max(1, Math.min(searchThreads, numDocs / Math.max(1, minDocsPerSlice)));
 	}
 
 	private synchronized void commit() {
 		executor.submit(() -> {
-			oriWriter.commit();
+			holder.commit();
 			return null;
 		});
 	}
 
+	/**
+	 * 如果分片数大于1，那么在搜索线程池中并行搜索各个分片
+	 * 
+	 * @param reader
+	 * @return
+	 */
+	private IndexSearcher newIndexSearcher(IndexReader reader) {
+		if (searchExecutor == null) {
+			return new IndexSearcher(reader);
+		}
+		LeafSlice[] slices = slices(reader.leaves());
+		if (slices.length < 2) {
+			return new IndexSearcher(reader);
+		}
+		return new IndexSearcher(reader, searchExecutor) {
+
+			@Override
+			protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+				return slices;
+			}
+
+		};
+	}
+
+	/**
+	 * 将段分配到分片中，分片数不超过搜索线程数，并且每个分片至少包含{@link #minDocsPerSlice}个文档。
+	 * 段按照文档数从多到少依次分配给当前文档数最少的分片
+	 * 
+	 * @param leaves
+	 * @return
+	 */
+	private LeafSlice[] slices(List<LeafReaderContext> leaves) {
+		int maxDoc = leaves.stream().mapToInt(leaf -> leaf.reader().maxDoc()).sum();
+		int count = Math.max(1,
+				Math.min(Math.min(searchThreads, leaves.size()), maxDoc / Math.max(1, minDocsPerSlice)));
+		List<List<LeafReaderContext>> groups = new ArrayList<>(count);
+		int[] docs = new int[count];
+		for (int i = 0; i < count; i++) {
+			groups.add(new ArrayList<>());
+		}
+		List<LeafReaderContext> sorted = new ArrayList<>(leaves);
+		sorted.sort(Comparator.comparingInt((LeafReaderContext leaf) -> leaf.reader().maxDoc()).reversed());
+		for (LeafReaderContext leaf : sorted) {
+			int min = 0;
+			for (int i = 1; i < count; i++) {
+				if (docs[i] < docs[min]) {
+					min = i;
+				}
+			}
+			groups.get(min).add(leaf);
+			docs[min] += leaf.reader().maxDoc();
+		}
+		return groups.stream().map(group -> new LeafSlice(group.toArray(new LeafReaderContext[group.size()])))
+				.toArray(LeafSlice[]::new);
+	}
+
+	@FunctionalInterface
+	private interface IndexTask {
+		void execute() throws IOException;
+	}
+
+	/**
+	 * 一份索引以及对应的写对象和查询对象
+	 * 
+	 * @since 6.7
+	 */
+	private final class IndexHolder {
+		/**
+		 * 每个索引的序号，用于区分重建前后的索引
+		 */
+		private final long seq = holderSequence.incrementAndGet();
+		/**
+		 * 索引目录，如果为null，则是内存索引
+		 */
+		private final Path path;
+		private final Directory dir;
+		private final IndexWriter writer;
+		private final SearcherManager searcherManager;
+
+		/**
+		 * 打开索引时，最近一次提交中记录的水位，如果没有记录，为null
+		 */
+		private final Long committedWatermark;
+
+		/**
+		 * 已经写入的文章的最大修改时间，只在写线程中修改
+		 */
+		private long watermark;
+
+		/**
+		 * 引用计数，作为当前索引时持有一个引用，每次查询时增加一个引用，归零后关闭
+		 */
+		private final AtomicInteger refCount = new AtomicInteger(1);
+		private volatile boolean deleteOnClose;
+
+		IndexHolder(Path path, OpenMode openMode) throws IOException {
+			this.path = path;
+			this.dir = path == null ? new RAMDirectory() : new MMapDirectory(path);
+			Map<String, String> userData = openMode != OpenMode.CREATE && DirectoryReader.indexExists(dir)
+					? SegmentInfos.readLatestCommit(dir).getUserData()
+					: Map.of();
+			this.committedWatermark = userData.containsKey(COMMIT_WATERMARK)
+					? Long.valueOf(userData.get(COMMIT_WATERMARK))
+					: null;
+			this.watermark = committedWatermark == null ? 0L : committedWatermark;
+			IndexWriterConfig config = new IndexWriterConfig(analyzer);
+			config.setOpenMode(openMode);
+			// 读多写少，保持较少的段数，每层的段数不超过定时合并的阈值，避免定时任务每次都需要合并
+			TieredMergePolicy mergePolicy = new TieredMergePolicy();
+			mergePolicy.setSegmentsPerTier(Math.max(2, maxSegmentCount));
+			mergePolicy.setForceMergeDeletesPctAllowed(5);
+			config.setMergePolicy(mergePolicy);
+			try {
+				this.writer = new IndexWriter(dir, config);
+			} catch (IOException e) {
+				dir.close();
+				throw new SystemException(e.getMessage(), e);
+			}
+			this.searcherManager = new SearcherManager(writer, new SearcherFactory() {
+
+				@Override
+				public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+					IndexSearcher searcher = newIndexSearcher(reader);
+					if (queryCache != null) {
+						searcher.setQueryCache(queryCache);
+						searcher.setQueryCachingPolicy(queryCachingPolicy);
+					}
+					return searcher;
+				}
+
+			});
+			this.searcherManager.addListener(refresher);
+		}
+
+		void updateWatermark(Article article) {
+			Timestamp date = article.getLastModifyDate() == null ? article.getPubDate()
+					: article.getLastModifyDate();
+			if (date != null) {
+				watermark = Math.max(watermark, date.getTime());
+			}
+		}
+
+		private void setCommitData() {
+			writer.setLiveCommitData(Map.of(COMMIT_WATERMARK, String.valueOf(watermark)).entrySet());
+		}
+
+		/**
+		 * 提交索引，同时记录水位
+		 * 
+		 * @throws IOException
+		 */
+		void commit() throws IOException {
+			setCommitData();
+			writer.commit();
+		}
+
+		/**
+		 * 当前IndexSearcher中的索引统计
+		 * 
+		 * @param searcher
+		 *            从该索引中获取的IndexSearcher
+		 * @return
+		 * @throws IOException
+		 */
+		IndexStatistics statistics(IndexSearcher searcher) throws IOException {
+			IndexReader reader = searcher.getIndexReader();
+			int mergedSegmentDocs = reader.maxDoc() / targetSegmentCount(reader.numDocs());
+			int smallSegmentCount = (int) reader.leaves().stream()
+					.filter(leaf -> leaf.reader().maxDoc() < mergedSegmentDocs / 2D).count();
+			long size = 0;
+			for (String file : dir.listAll()) {
+				try {
+					size += dir.fileLength(file);
+				} catch (IOException e) {
+					// 文件已经被删除
+				}
+			}
+			return new IndexStatistics(reader.leaves().size(), smallSegmentCount, reader.numDocs(),
+					reader.numDeletedDocs(), size, searchExecutor == null ? 1 : slices(reader.leaves()).length);
+		}
+
+		/**
+		 * 增加引用
+		 * 
+		 * @return 如果索引已经关闭，返回false
+		 */
+		boolean tryIncRef() {
+			int count;
+			while ((count = refCount.get()) > 0) {
+				if (refCount.compareAndSet(count, count + 1)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void decRef() {
+			if (refCount.decrementAndGet() == 0) {
+				close();
+				if (deleteOnClose) {
+					FileUtils.deleteQuietly(path);
+				}
+			}
+		}
+
+		/**
+		 * 不再作为当前索引，最后一个查询结束后关闭
+		 * 
+		 * @param delete
+		 *            关闭后是否删除索引目录
+		 */
+		void retire(boolean delete) {
+			this.deleteOnClose = delete;
+			decRef();
+		}
+
+		private void close() {
+			try {
+				setCommitData();
+				writer.close();
+				searcherManager.close();
+				dir.close();
+			} catch (AlreadyClosedException | IOException e) {
+				LOGGER.warn(e.getMessage(), e);
+			}
+		}
+	}
+
 	private static final class DefaultFormatter implements Formatter {
 		private String classes;
 
@@ -678,6 +1973,131 @@ public abstract class ArticleIndexer implements InitializingBean {
 		}
 	}
 
+	/**
+	 * 统计每个段中各个维度的序号出现的次数，切换段时再转换为具体的值
+	 */
+	private static final class FacetCollector extends SimpleCollector {
+
+		private final Map<String, Integer> tags = new HashMap<>();
+		private final Map<String, Integer> spaces = new HashMap<>();
+		private final Map<String, Integer> months = new HashMap<>();
+		private final Map<String, Integer> froms = new HashMap<>();
+		private int total;
+
+		private SortedSetDocValues tagValues;
+		private SortedDocValues spaceValues;
+		private SortedDocValues monthValues;
+		private SortedDocValues fromValues;
+		private int[] tagCounts;
+		private int[] spaceCounts;
+		private int[] monthCounts;
+		private int[] fromCounts;
+
+		@Override
+		protected void doSetNextReader(LeafReaderContext context) throws IOException {
+			flush();
+			LeafReader reader = context.reader();
+			tagValues = DocValues.getSortedSet(reader, FACET_TAG);
+			spaceValues = DocValues.getSorted(reader, FACET_SPACE);
+			monthValues = DocValues.getSorted(reader, FACET_MONTH);
+			fromValues = DocValues.getSorted(reader, FACET_FROM);
+			tagCounts = new int[(int) tagValues.getValueCount()];
+			spaceCounts = new int[spaceValues.getValueCount()];
+			monthCounts = new int[monthValues.getValueCount()];
+			fromCounts = new int[fromValues.getValueCount()];
+		}
+
+		@Override
+		public void collect(int doc) throws IOException {
+			total++;
+			tagValues.setDocument(doc);
+			for (long ord = tagValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = tagValues
+					.nextOrd()) {
+				tagCounts[(int) ord]++;
+			}
+			count(spaceValues, spaceCounts, doc);
+			count(monthValues, monthCounts, doc);
+			count(fromValues, fromCounts, doc);
+		}
+
+		private void count(SortedDocValues values, int[] counts, int doc) {
+			int ord = values.getOrd(doc);
+			if (ord >= 0) {
+				counts[ord]++;
+			}
+		}
+
+		/**
+		 * 将当前段的统计合并到结果中
+		 */
+		void flush() {
+			if (tagCounts == null) {
+				return;
+			}
+			for (int ord = 0; ord < tagCounts.length; ord++) {
+				if (tagCounts[ord] > 0) {
+					tags.merge(tagValues.lookupOrd(ord).utf8ToString(), tagCounts[ord], Integer::sum);
+				}
+			}
+			merge(spaceValues, spaceCounts, spaces);
+			merge(monthValues, monthCounts, months);
+			merge(fromValues, fromCounts, froms);
+			tagCounts = null;
+		}
+
+		private void merge(SortedDocValues values, int[] counts, Map<String, Integer> result) {
+			for (int ord = 0; ord < counts.length; ord++) {
+				if (counts[ord] > 0) {
+					result.merge(values.lookupOrd(ord).utf8ToString(), counts[ord], Integer::sum);
+				}
+			}
+		}
+
+		ArticleFacets toFacets() {
+			Map<String, Integer> sortedTags = new LinkedHashMap<>();
+			tags.entrySet().stream().sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+					.forEachOrdered(entry -> sortedTags.put(entry.getKey(), entry.getValue()));
+			Map<String, Integer> sortedMonths = new LinkedHashMap<>();
+			months.entrySet().stream().sorted(Map.Entry.<String, Integer>comparingByKey().reversed())
+					.forEachOrdered(entry -> sortedMonths.put(entry.getKey(), entry.getValue()));
+			Map<Integer, Integer> spaceMap = new HashMap<>();
+			spaces.forEach((id, count) -> spaceMap.put(Integer.valueOf(id), count));
+			Map<ArticleFrom, Integer> fromMap = new EnumMap<>(ArticleFrom.class);
+			froms.forEach((from, count) -> fromMap.put(ArticleFrom.valueOf(from), count));
+			return new ArticleFacets(total, sortedTags, spaceMap, sortedMonths, fromMap);
+		}
+
+		@Override
+		public boolean needsScores() {
+			return false;
+		}
+	}
+
+	private final class OffsetsHighlighter extends UnifiedHighlighter {
+
+		OffsetsHighlighter(IndexSearcher searcher) {
+			super(searcher, analyzer);
+			setMaxLength(MAX_HIGHLIGHT_LENGTH);
+		}
+
+		@Override
+		protected PassageFormatter getFormatter(String field) {
+			return TITLE.equals(field) ? titlePassageFormatter : summaryPassageFormatter;
+		}
+
+		@Override
+		protected BreakIterator getBreakIterator(String field) {
+			// 标题作为一个整体
+			return TITLE.equals(field) ? new WholeBreakIterator() : super.getBreakIterator(field);
+		}
+
+		@Override
+		protected int getMaxNoHighlightPassages(String field) {
+			// 没有匹配时返回null，以便摘要退回到内容的高亮
+			return 0;
+		}
+	}
+
 	public void setBoostMap(Map<String, Float> boostMap) {
 		this.boostMap = boostMap;
 	}
@@ -694,6 +2114,18 @@ public abstract class ArticleIndexer implements InitializingBean {
 		this.summaryFormatter = summaryFormatter;
 	}
 
+	public void setOffsetsHighlight(boolean offsetsHighlight) {
+		this.offsetsHighlight = offsetsHighlight;
+	}
+
+	public void setTitlePassageFormatter(PassageFormatter titlePassageFormatter) {
+		this.titlePassageFormatter = titlePassageFormatter;
+	}
+
+	public void setSummaryPassageFormatter(PassageFormatter summaryPassageFormatter) {
+		this.summaryPassageFormatter = summaryPassageFormatter;
+	}
+
 	public void setUseRAMDirectory(boolean useRAMDirectory) {
 		this.useRAMDirectory = useRAMDirectory;
 	}
@@ -709,4 +2141,123 @@ public abstract class ArticleIndexer implements InitializingBean {
 	public void setCommitSchedulePeriodSec(int commitSchedulePeriodSec) {
 		this.commitSchedulePeriodSec = commitSchedulePeriodSec;
 	}
+
+	public void setMaxResults(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	public void setSearchCacheSize(int searchCacheSize) {
+		this.searchCacheSize = searchCacheSize;
+	}
+
+	public void setRelatedCacheSize(int relatedCacheSize) {
+		this.relatedCacheSize = relatedCacheSize;
+	}
+
+	public void setRelatedSize(int relatedSize) {
+		this.relatedSize = relatedSize;
+	}
+
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	public void setQueryCacheMaxRamMB(long queryCacheMaxRamMB) {
+		this.queryCacheMaxRamMB = queryCacheMaxRamMB;
+	}
+
+	public void setSearchThreads(int searchThreads) {
+		this.searchThreads = searchThreads;
+	}
+
+	public void setMinDocsPerSlice(int minDocsPerSlice) {
+		this.minDocsPerSlice = minDocsPerSlice;
+	}
+
+	public void setMergeSchedulePeriodSec(int mergeSchedulePeriodSec) {
+		this.mergeSchedulePeriodSec = mergeSchedulePeriodSec;
+	}
+
+	public void setMaxSegmentCount(int maxSegmentCount) {
+		this.maxSegmentCount = maxSegmentCount;
+	}
+
+	public void setMaxDeletedRatio(double maxDeletedRatio) {
+		this.maxDeletedRatio = maxDeletedRatio;
+	}
+
+	public void setRefreshDelayMillis(long refreshDelayMillis) {
+		this.refreshDelayMillis = refreshDelayMillis;
+	}
+
+	public void setHitsFlushDelayMillis(long hitsFlushDelayMillis) {
+		this.hitsFlushDelayMillis = hitsFlushDelayMillis;
+	}
+
+	/**
+	 * 查询结果缓存的命中率
+	 * 
+	 * @return 如果没有开启缓存，返回{@link OptionalDouble#empty()}
+	 */
+	public OptionalDouble getSearchCacheHitRate() {
+		return searchCache == null ? OptionalDouble.empty() : OptionalDouble.of(searchCache.hitRate());
+	}
+
+	/**
+	 * 当前索引的统计，包括段数、已删除文档的比例以及索引大小
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public IndexStatistics getIndexStatistics() {
+		try {
+			return search(false, (holder, searcher) -> holder.statistics(searcher));
+		} catch (IOException e) {
+			throw new SystemException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 查询缓存的命中率
+	 * 
+	 * @since 6.7
+	 * @return 如果没有使用自定义的查询缓存，返回{@link OptionalDouble#empty()}
+	 */
+	public OptionalDouble getQueryCacheHitRate() {
+		if (queryCache == null) {
+			return OptionalDouble.empty();
+		}
+		long total = queryCache.getTotalCount();
+		return total == 0 ? OptionalDouble.of(1.0D) : OptionalDouble.of((double) queryCache.getHitCount() / total);
+	}
+
+	/**
+	 * IndexSearcher被重新打开的次数
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public long getReopenCount() {
+		return refresher.getReopenCount();
+	}
+
+	/**
+	 * 重新打开IndexSearcher的平均耗时(毫秒)
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public double getAverageReopenMillis() {
+		return refresher.getAverageReopenMillis();
+	}
+
+	/**
+	 * 最近一次重新打开IndexSearcher的耗时(毫秒)
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public double getLastReopenMillis() {
+		return refresher.getLastReopenMillis();
+	}
 }
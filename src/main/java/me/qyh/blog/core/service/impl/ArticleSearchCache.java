@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import me.qyh.blog.core.entity.Article;
+import me.qyh.blog.core.entity.Tag;
+import me.qyh.blog.core.vo.ArticleQueryParam;
+
+/**
+ * 全文检索结果缓存
+ * <p>
+ * 缓存的key为规范化后的查询参数，缓存内容为文章id、总数以及高亮后的片段。
+ * 每条缓存都记录了查询时索引的代数(索引以及IndexReader的版本)，索引刷新之后旧的缓存不会再被命中，因此无需主动清除
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class ArticleSearchCache {
+
+	private final Cache<Key, Entry> cache;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	ArticleSearchCache(long maxSize) {
+		super();
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+	}
+
+	/**
+	 * 获取缓存的结果
+	 * 
+	 * @param param
+	 * @param generation
+	 *            当前索引的代数
+	 * @return
+	 */
+	Optional<Entry> get(ArticleQueryParam param, Generation generation) {
+		Key key = new Key(param);
+		Entry entry = cache.getIfPresent(key);
+		if (entry != null && !entry.generation.equals(generation)) {
+			cache.asMap().remove(key, entry);
+			entry = null;
+		}
+		if (entry == null) {
+			misses.increment();
+			return Optional.empty();
+		}
+		hits.increment();
+		return Optional.of(entry);
+	}
+
+	void put(ArticleQueryParam param, Entry entry) {
+		cache.put(new Key(param), entry);
+	}
+
+	void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * 缓存的命中率，索引刷新后失效的缓存计为未命中
+	 * 
+	 * @return
+	 */
+	double hitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 1.0D : (double) hitCount / total;
+	}
+
+	long estimatedSize() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * 索引的代数
+	 */
+	static final class Generation {
+		private final long holder;
+		private final long version;
+
+		Generation(long holder, long version) {
+			super();
+			this.holder = holder;
+			this.version = version;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(holder, version);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Generation other = (Generation) obj;
+			return holder == other.holder && version == other.version;
+		}
+	}
+
+	/**
+	 * 缓存的查询结果
+	 */
+	static final class Entry {
+		private final Generation generation;
+		private final List<Integer> ids;
+		private final int total;
+		private final String nextCursor;
+		private final Map<Integer, Highlight> highlights = new HashMap<>();
+
+		Entry(Generation generation, List<Integer> ids, int total, String nextCursor) {
+			super();
+			this.generation = generation;
+			this.ids = List.copyOf(ids);
+			this.total = total;
+			this.nextCursor = nextCursor;
+		}
+
+		List<Integer> getIds() {
+			return ids;
+		}
+
+		int getTotal() {
+			return total;
+		}
+
+		String getNextCursor() {
+			return nextCursor;
+		}
+
+		/**
+		 * 记录高亮后的文章，只记录发生了变化的标题、摘要以及标签
+		 * 
+		 * @param highlighted
+		 *            高亮之后的文章
+		 * @param originalTitle
+		 *            高亮之前的标题
+		 * @param originalSummary
+		 *            高亮之前的摘要
+		 */
+		void addHighlight(Article highlighted, String originalTitle, String originalSummary) {
+			Highlight highlight = new Highlight();
+			if (!Objects.equals(originalTitle, highlighted.getTitle())) {
+				highlight.title = highlighted.getTitle();
+			}
+			if (!Objects.equals(originalSummary, highlighted.getSummary())) {
+				highlight.summary = highlighted.getSummary();
+			}
+			if (highlighted.getTags() != null) {
+				for (Tag tag : highlighted.getTags()) {
+					highlight.tags.put(tag.getId(), tag.getName());
+				}
+			}
+			highlights.put(highlighted.getId(), highlight);
+		}
+
+		/**
+		 * 将缓存的高亮片段应用到文章上
+		 * 
+		 * @param article
+		 */
+		void applyHighlight(Article article) {
+			Highlight highlight = highlights.get(article.getId());
+			if (highlight == null) {
+				return;
+			}
+			article.setContent(null);
+			if (highlight.title != null) {
+				article.setTitle(highlight.title);
+			}
+			if (highlight.summary != null) {
+				article.setSummary(highlight.summary);
+			}
+			if (article.getTags() != null) {
+				for (Tag tag : article.getTags()) {
+					String name = highlight.tags.get(tag.getId());
+					if (name != null) {
+						tag.setName(name);
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Highlight {
+		private String title;
+		private String summary;
+		private final Map<Integer, String> tags = new HashMap<>();
+	}
+
+	private static final class Key {
+		private final String query;
+		private final Integer spaceId;
+		private final Set<Integer> spaceIds;
+		private final String tag;
+		private final Article.ArticleFrom from;
+		private final Date begin;
+		private final Date end;
+		private final boolean queryPrivate;
+		private final boolean ignoreLevel;
+		private final ArticleQueryParam.Sort sort;
+		private final boolean highlight;
+		private final int currentPage;
+		private final int pageSize;
+		private final String cursor;
+
+		Key(ArticleQueryParam param) {
+			super();
+			this.query = param.getQuery() == null ? null : param.getQuery().trim().replaceAll("\\s+", " ");
+			this.spaceId = param.getSpace() == null ? null : param.getSpace().getId();
+			this.spaceIds = param.getSpaceIds() == null ? Set.of() : new TreeSet<>(param.getSpaceIds());
+			this.tag = param.getTag();
+			this.from = param.getFrom();
+			this.begin = param.getBegin();
+			this.end = param.getEnd();
+			this.queryPrivate = param.isQueryPrivate();
+			this.ignoreLevel = param.isIgnoreLevel();
+			this.sort = param.getSort();
+			this.highlight = param.isHighlight();
+			this.currentPage = param.getCursor() == null ? param.getCurrentPage() : 0;
+			this.pageSize = param.getPageSize();
+			this.cursor = param.getCursor();
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(query, spaceId, spaceIds, tag, from, begin, end, queryPrivate, ignoreLevel, sort,
+					highlight, currentPage, pageSize, cursor);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return queryPrivate == other.queryPrivate && ignoreLevel == other.ignoreLevel
+					&& highlight == other.highlight && currentPage == other.currentPage
+					&& pageSize == other.pageSize && Objects.equals(query, other.query)
+					&& Objects.equals(spaceId, other.spaceId) && Objects.equals(spaceIds, other.spaceIds)
+					&& Objects.equals(tag, other.tag) && from == other.from && Objects.equals(begin, other.begin)
+					&& Objects.equals(end, other.end) && sort == other.sort && Objects.equals(cursor, other.cursor);
+		}
+	}
+}
@@ -27,12 +27,18 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
@@ -68,13 +74,16 @@ import me.qyh.blog.core.service.HitsStrategy;
 import me.qyh.blog.core.service.LockManager;
 import me.qyh.blog.core.text.CommonMarkdown2Html;
 import me.qyh.blog.core.text.Markdown2Html;
+import me.qyh.blog.core.text.RenderedContentCache;
 import me.qyh.blog.core.util.Validators;
 import me.qyh.blog.core.vo.ArticleArchiveTree;
 import me.qyh.blog.core.vo.ArticleArchiveTree.ArticleArchiveMode;
 import me.qyh.blog.core.vo.ArticleDetailStatistics;
+import me.qyh.blog.core.vo.ArticleFacets;
 import me.qyh.blog.core.vo.ArticleNav;
 import me.qyh.blog.core.vo.ArticleQueryParam;
 import me.qyh.blog.core.vo.ArticleStatistics;
+import me.qyh.blog.core.vo.ArticleSuggestion;
 import me.qyh.blog.core.vo.PageResult;
 import me.qyh.blog.core.vo.SpaceQueryParam;
 import me.qyh.blog.core.vo.TagCount;
@@ -98,10 +107,15 @@ public class ArticleServiceImpl
 	private PlatformTransactionManager transactionManager;
 	@Autowired
 	private ArticleIndexer articleIndexer;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
 
 	private ApplicationEventPublisher applicationEventPublisher;
 
-	private boolean rebuildIndex = true;
+	/**
+	 * 启动时是否重建全部索引，如果为false，那么只同步上次关闭后发生变化的文章
+	 */
+	private boolean rebuildIndex;
 
 	@Autowired
 	private ArticleContentHandler articleContentHandler;
@@ -119,6 +133,17 @@ public class ArticleServiceImpl
 	@Autowired(required = false)
 	private Markdown2Html markdown2Html;
 
+	/**
+	 * 文章内容和摘要渲染后的缓存
+	 * 
+	 * @since 6.7
+	 */
+	@Autowired(required = false)
+	private RenderedContentCache renderedContentCache;
+
+	private static final String RENDERED_CONTENT = "article.content";
+	private static final String RENDERED_SUMMARY = "article.summary";
+
 	private List<ArticleHitHandler> hitHandlers = new ArrayList<>();
 
 	/**
@@ -128,6 +153,22 @@ public class ArticleServiceImpl
 	@Autowired
 	private TaskScheduler taskScheduler;
 
+	/**
+	 * 默认点击策略刷新点击数的间隔
+	 * 
+	 * @since 6.7
+	 */
+	private int hitsFlushSec;
+
+	/**
+	 * 默认点击策略每批次更新的文章数
+	 * 
+	 * @since 6.7
+	 */
+	private int hitsFlushNum;
+
+	private DefaultHitsStrategy defaultHitsStrategy;
+
 	@Override
 	@Transactional(readOnly = true)
 	public Optional<Article> getArticleForView(String idOrAlias) {
@@ -137,17 +178,17 @@ public class ArticleServiceImpl
 			Article article = optionalArticle.get();
 			article.setComments(commentServer.queryCommentNum(COMMENT_MODULE_NAME, article.getId()).orElse(0));
 
-			String content = article.getContent();
+			Editor editor = article.getEditor();
+			Integer id = article.getId();
+			article.setContent(renderedContentCache.get(RENDERED_CONTENT + "." + editor, id, article.getContent(),
+					content -> articleContentHandler
+							.handle(Editor.MD.equals(editor) ? markdown2Html.toHtml(content) : content)));
 
-			if (Editor.MD.equals(article.getEditor())) {
-				content = markdown2Html.toHtml(content);
-				article.setSummary(markdown2Html.toHtml(article.getSummary()));
+			if (Editor.MD.equals(editor)) {
+				article.setSummary(
+						renderedContentCache.get(RENDERED_SUMMARY, id, article.getSummary(), markdown2Html::toHtml));
 			}
 
-			content = articleContentHandler.handle(content);
-
-			article.setContent(content);
-
 			return Optional.of(article);
 		}
 		return Optional.empty();
@@ -223,7 +264,7 @@ public class ArticleServiceImpl
 
 		articleDao.update(article);
 
-		boolean rebuildIndexWhenTagChange = insertTags(article);
+		insertTags(article);
 
 		Transactions.afterCommit(() -> {
 
@@ -231,13 +272,10 @@ public class ArticleServiceImpl
 				scheduleManager.update();
 			}
 
-			if (rebuildIndexWhenTagChange) {
-				articleIndexer.rebuildIndex();
+			if (article.isPublished()) {
+				articleIndexer.addOrUpdateDocument(article.getId());
 			} else {
 				articleIndexer.deleteDocument(article.getId());
-				if (article.isPublished()) {
-					articleIndexer.addOrUpdateDocument(article.getId());
-				}
 			}
 		});
 		applicationEventPublisher
@@ -286,18 +324,14 @@ public class ArticleServiceImpl
 
 		articleDao.insert(article);
 
-		boolean rebuildIndexWhenTagChange = insertTags(article);
+		insertTags(article);
 		if (article.isSchedule()) {
 			scheduleManager.update();
 		}
 
 		Transactions.afterCommit(() -> {
-			if (rebuildIndexWhenTagChange) {
-				articleIndexer.rebuildIndex();
-			} else {
-				if (article.isPublished()) {
-					articleIndexer.addOrUpdateDocument(article.getId());
-				}
+			if (article.isPublished()) {
+				articleIndexer.addOrUpdateDocument(article.getId());
 			}
 		});
 		applicationEventPublisher.publishEvent(new ArticleCreateEvent(this, articleDao.selectById(article.getId())));
@@ -323,9 +357,8 @@ public class ArticleServiceImpl
 		return article;
 	}
 
-	private boolean insertTags(Article article) {
+	private void insertTags(Article article) {
 		Set<Tag> tags = article.getTags();
-		boolean rebuildIndexWhenTagChange = false;
 		Set<String> indexTags = new HashSet<>();
 		if (!CollectionUtils.isEmpty(tags)) {
 			for (Tag tag : tags) {
@@ -340,7 +373,6 @@ public class ArticleServiceImpl
 					tagDao.insert(tag);
 					articleTag.setTag(tag);
 					indexTags.add(tagName);
-					rebuildIndexWhenTagChange = true;
 				} else {
 					articleTag.setTag(tagDb);
 				}
@@ -348,9 +380,9 @@ public class ArticleServiceImpl
 			}
 		}
 		if (!indexTags.isEmpty()) {
-			Transactions.afterCommit(() -> articleIndexer.addTags(indexTags.toArray(new String[indexTags.size()])));
+			// 只重建受新标签影响的文章的索引
+			Transactions.afterCommit(() -> articleIndexer.changeTags(Set.of(), indexTags));
 		}
-		return rebuildIndexWhenTagChange;
 	}
 
 	@Override
@@ -387,9 +419,10 @@ public class ArticleServiceImpl
 		if (!CollectionUtils.isEmpty(datas)) {
 			List<Integer> ids = datas.stream().map(Article::getId).collect(Collectors.toList());
 			Map<Integer, Integer> countsMap = commentServer.queryCommentNums(COMMENT_MODULE_NAME, ids);
-			Map<Integer, String> htmlMap = markdown2Html
-					.toHtmls(datas.stream().filter(article -> Editor.MD.equals(article.getEditor()))
-							.collect(Collectors.toMap(Article::getId, Article::getSummary)));
+			Map<Integer, String> htmlMap = renderedContentCache.getAll(RENDERED_SUMMARY,
+					datas.stream().filter(article -> Editor.MD.equals(article.getEditor()))
+							.collect(Collectors.toMap(Article::getId, Article::getSummary)),
+					markdown2Html::toHtmls);
 			datas.stream().forEach(article -> {
 				Integer comments = countsMap.get(article.getId());
 				article.setComments(comments == null ? 0 : comments);
@@ -580,6 +613,29 @@ public class ArticleServiceImpl
 		return articleStatistics;
 	}
 
+	@Override
+	public ArticleFacets queryArticleFacets(ArticleQueryParam param) {
+		checkParam(param);
+		return articleIndexer.facets(param);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Article> queryRelatedArticles(Integer id, int limit) {
+		List<Integer> ids = articleIndexer.getRelatedIds(id, limit);
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<Integer, Article> map = articleDao.selectPageByIds(ids).stream()
+				.collect(Collectors.toMap(Article::getId, article -> article));
+		return ids.stream().map(map::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	@Override
+	public List<ArticleSuggestion> suggest(String prefix, int limit) {
+		return articleIndexer.suggest(prefix, Environment.getSpace(), Environment.isLogin(), limit);
+	}
+
 	@Override
 	public void preparePreview(Article article) {
 		String content = article.getContent();
@@ -597,6 +653,35 @@ public class ArticleServiceImpl
 		articleDao.deleteLock(event.getLock().getId());
 	}
 
+	@EventListener
+	public void handleArticleUpdateEvent(ArticleUpdateEvent event) {
+		renderedContentCache.invalidate(event.getNewArticle().getId());
+	}
+
+	/**
+	 * 需要在索引关闭之前执行，使得最后一批点击数能够写入索引
+	 * 
+	 * @param event
+	 */
+	@EventListener
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void handleContextCloseEvent(ContextClosedEvent event) {
+		if (event.getApplicationContext().getParent() != null) {
+			return;
+		}
+		if (defaultHitsStrategy != null) {
+			defaultHitsStrategy.flush(true);
+		}
+	}
+
+	@EventListener
+	public void handleArticleDeleteEvent(ArticleDelEvent event) {
+		event.getArticles().stream().map(Article::getId).forEach(renderedContentCache::invalidate);
+		if (defaultHitsStrategy != null && !event.isLogicDelete()) {
+			event.getArticles().stream().map(Article::getId).forEach(defaultHitsStrategy::remove);
+		}
+	}
+
 	@EventListener
 	public void handleSpaceDeleteEvent(SpaceDelEvent event) {
 		Space deleted = event.getSpace();
@@ -619,10 +704,20 @@ public class ArticleServiceImpl
 	public void afterPropertiesSet() throws Exception {
 		if (rebuildIndex) {
 			this.articleIndexer.rebuildIndex();
+		} else {
+			this.articleIndexer.reconcile();
 		}
 
 		if (hitsStrategy == null) {
-			hitsStrategy = new DefaultHitsStrategy();
+			if (hitsFlushSec <= 0) {
+				hitsFlushSec = 10;
+			}
+			if (hitsFlushNum <= 0) {
+				hitsFlushNum = 50;
+			}
+			defaultHitsStrategy = new DefaultHitsStrategy(hitsFlushNum);
+			hitsStrategy = defaultHitsStrategy;
+			taskScheduler.scheduleAtFixedRate(() -> defaultHitsStrategy.flush(false), hitsFlushSec * 1000L);
 		}
 
 		this.articleHitManager = new ArticleHitManager(hitsStrategy);
@@ -637,6 +732,10 @@ public class ArticleServiceImpl
 			markdown2Html = CommonMarkdown2Html.INSTANCE;
 		}
 
+		if (renderedContentCache == null) {
+			renderedContentCache = new RenderedContentCache(500);
+		}
+
 		if (publishSchedulePeriodSec <= 0) {
 			publishSchedulePeriodSec = 5;
 		}
@@ -750,29 +849,35 @@ public class ArticleServiceImpl
 	}
 
 	/**
-	 * 默认文章点击策略，文章的点击数将会实时显示
-	 * <p>
-	 * <b>这种策略下每次点击都会增加点击量</b>
-	 * </p>
+	 * 默认文章点击策略，每次点击都会增加点击量，点击数每隔一段时间批量刷入数据库和索引
 	 * 
 	 * @author mhlx
 	 *
 	 */
-	private final class DefaultHitsStrategy implements HitsStrategy<Article> {
+	private final class DefaultHitsStrategy extends WriteBehindHitsStrategy<Article> {
+
+		DefaultHitsStrategy(int flushNum) {
+			super(transactionManager, flushNum);
+		}
 
 		@Override
-		public void hit(Article article) {
-			synchronized (this) {
-				Transactions.executeInTransaction(transactionManager, status -> {
-					Integer id = article.getId();
-					int hits = articleDao.selectHits(id) + 1;
-					articleDao.updateHits(id, hits);
-
-					Transactions.afterCommit(() -> {
-						articleIndexer.updateHits(Map.of(id, hits));
-					});
-				});
+		protected void doFlush(Map<Integer, Integer> increments, boolean contextClose) {
+			try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+				ArticleDao articleDao = sqlSession.getMapper(ArticleDao.class);
+				int num = 0;
+				for (Map.Entry<Integer, Integer> it : increments.entrySet()) {
+					articleDao.addHits(it.getKey(), it.getValue());
+					num++;
+					if (num % flushNum == 0) {
+						sqlSession.commit();
+					}
+				}
+				sqlSession.commit();
 			}
+			// 一次刷新只更新一次索引，容器关闭时索引会在关闭前写入这些点击数
+			Map<Integer, Integer> hitsMap = articleDao.selectHitsByIds(increments.keySet()).stream()
+					.collect(Collectors.toMap(Article::getId, Article::getHits));
+			Transactions.afterCommit(() -> articleIndexer.updateHits(hitsMap));
 		}
 	}
 
@@ -826,4 +931,32 @@ public class ArticleServiceImpl
 		this.publishSchedulePeriodSec = publishSchedulePeriodSec;
 	}
 
+	public void setHitsFlushSec(int hitsFlushSec) {
+		this.hitsFlushSec = hitsFlushSec;
+	}
+
+	public void setHitsFlushNum(int hitsFlushNum) {
+		this.hitsFlushNum = hitsFlushNum;
+	}
+
+	@Override
+	public long getHitsLastFlushMillis() {
+		return defaultHitsStrategy == null ? -1 : defaultHitsStrategy.getLastFlushMillis();
+	}
+
+	@Override
+	public int getHitsPendingSize() {
+		return defaultHitsStrategy == null ? -1 : defaultHitsStrategy.getPendingSize();
+	}
+
+	/**
+	 * 文章内容渲染缓存的命中率
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public double getRenderedContentHitRate() {
+		return renderedContentCache.hitRate();
+	}
+
 }
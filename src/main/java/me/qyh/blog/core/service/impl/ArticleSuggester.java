@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.util.CollectionUtils;
+
+import me.qyh.blog.core.entity.Article;
+import me.qyh.blog.core.entity.Space;
+import me.qyh.blog.core.entity.Tag;
+import me.qyh.blog.core.vo.ArticleSuggestion;
+import me.qyh.blog.core.vo.ArticleSuggestion.SuggestionType;
+
+/**
+ * 基于内存的前缀搜索建议
+ * <p>
+ * 保存已经发布文章的标题、别名以及标签，按照小写后的文本排序，查询时只需要遍历以前缀开头的部分，不会访问数据库。
+ * 只能在索引的写线程中修改，查询可以并发进行
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class ArticleSuggester {
+
+	/**
+	 * key:小写文本 + \0 + 类型 + \0 + 文章id，保证唯一并且相同文本的建议相邻
+	 */
+	private final ConcurrentSkipListMap<String, Entry> index = new ConcurrentSkipListMap<>();
+	private final Map<Integer, List<String>> keysById = new ConcurrentHashMap<>();
+
+	/**
+	 * 增加或者更新一篇文章的建议
+	 * 
+	 * @param article
+	 *            已经发布的文章
+	 */
+	void put(Article article) {
+		remove(article.getId());
+		List<String> keys = new ArrayList<>();
+		Integer spaceId = article.getSpace() == null ? null : article.getSpace().getId();
+		boolean visible = !article.isPrivate() && !article.hasLock();
+		add(keys, new Entry(SuggestionType.TITLE, article.getTitle(), article, spaceId, visible));
+		if (article.getAlias() != null) {
+			add(keys, new Entry(SuggestionType.ALIAS, article.getAlias(), article, spaceId, visible));
+		}
+		Set<Tag> tags = article.getTags();
+		if (!CollectionUtils.isEmpty(tags)) {
+			for (Tag tag : tags) {
+				add(keys, new Entry(SuggestionType.TAG, tag.getName(), article, spaceId, visible));
+			}
+		}
+		keysById.put(article.getId(), keys);
+	}
+
+	private void add(List<String> keys, Entry entry) {
+		if (entry.text == null || entry.text.isEmpty()) {
+			return;
+		}
+		String key = normalize(entry.text) + '\0' + entry.type.ordinal() + '\0' + entry.articleId;
+		index.put(key, entry);
+		keys.add(key);
+	}
+
+	void remove(Integer id) {
+		List<String> keys = keysById.remove(id);
+		if (keys != null) {
+			keys.forEach(index::remove);
+		}
+	}
+
+	/**
+	 * 查询以prefix开头的建议
+	 * 
+	 * @param prefix
+	 *            前缀，忽略大小写
+	 * @param space
+	 *            空间，如果为null，查询所有空间
+	 * @param queryPrivate
+	 *            是否包含私人以及被锁保护的文章
+	 * @param limit
+	 *            最大数目
+	 * @return 标签只会出现一次
+	 */
+	List<ArticleSuggestion> suggest(String prefix, Space space, boolean queryPrivate, int limit) {
+		List<ArticleSuggestion> suggestions = new ArrayList<>();
+		String from = normalize(prefix);
+		if (from.isEmpty() || limit < 1) {
+			return suggestions;
+		}
+		Integer spaceId = space == null ? null : space.getId();
+		Set<String> tags = new HashSet<>();
+		ConcurrentNavigableMap<String, Entry> range = index.subMap(from, true, from + Character.MAX_VALUE, true);
+		for (Entry entry : range.values()) {
+			if (!queryPrivate && !entry.visible) {
+				continue;
+			}
+			if (spaceId != null && !spaceId.equals(entry.spaceId)) {
+				continue;
+			}
+			if (entry.type == SuggestionType.TAG) {
+				if (!tags.add(normalize(entry.text))) {
+					continue;
+				}
+				suggestions.add(new ArticleSuggestion(entry.type, entry.text, null, null));
+			} else {
+				suggestions.add(new ArticleSuggestion(entry.type, entry.text, entry.articleId, entry.alias));
+			}
+			if (suggestions.size() >= limit) {
+				break;
+			}
+		}
+		return suggestions;
+	}
+
+	private static String normalize(String text) {
+		return text.trim().toLowerCase();
+	}
+
+	private static final class Entry {
+		private final SuggestionType type;
+		private final String text;
+		private final Integer articleId;
+		private final String alias;
+		private final Integer spaceId;
+		private final boolean visible;
+
+		Entry(SuggestionType type, String text, Article article, Integer spaceId, boolean visible) {
+			super();
+			this.type = type;
+			this.text = text;
+			this.articleId = article.getId();
+			this.alias = article.getAlias();
+			this.spaceId = spaceId;
+			this.visible = visible;
+		}
+	}
+}
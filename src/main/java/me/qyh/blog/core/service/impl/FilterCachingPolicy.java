@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+/**
+ * 查询缓存策略
+ * <p>
+ * 默认的{@link UsageTrackingQueryCachingPolicy}从不缓存TermQuery，
+ * 因此几乎每次查询都会用到的可见性以及空间、来源等过滤条件永远不会被缓存。
+ * 对于这些字段上的过滤条件直接缓存，其他查询交给默认策略处理
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class FilterCachingPolicy implements QueryCachingPolicy {
+
+	private final Set<String> fields;
+	private final QueryCachingPolicy delegate = new UsageTrackingQueryCachingPolicy();
+
+	/**
+	 * @param fields
+	 *            只用于过滤的字段
+	 */
+	FilterCachingPolicy(Set<String> fields) {
+		super();
+		this.fields = Set.copyOf(fields);
+	}
+
+	@Override
+	public void onUse(Query query) {
+		delegate.onUse(query);
+	}
+
+	@Override
+	public boolean shouldCache(Query query) throws IOException {
+		return isFilter(query) || delegate.shouldCache(query);
+	}
+
+	/**
+	 * 是否是过滤字段上的TermQuery，或者只由这些TermQuery组成的BooleanQuery
+	 * 
+	 * @param query
+	 * @return
+	 */
+	private boolean isFilter(Query query) {
+		if (query instanceof TermQuery) {
+			return fields.contains(((TermQuery) query).getTerm().field());
+		}
+		if (query instanceof BooleanQuery) {
+			BooleanQuery bq = (BooleanQuery) query;
+			if (bq.clauses().isEmpty()) {
+				return false;
+			}
+			for (BooleanClause clause : bq.clauses()) {
+				if (clause.isProhibited() || !isFilter(clause.getQuery())) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.ReferenceManager.RefreshListener;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * 根据写操作刷新IndexSearcher
+ * <p>
+ * 只有在索引发生变化后才会安排一次刷新，在刷新之前的变化会被合并到同一次刷新中，索引没有变化时不会刷新
+ * </p>
+ * <p>
+ * 同时作为{@link RefreshListener}统计IndexSearcher实际被重新打开的次数以及耗时
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class IndexRefresher implements RefreshListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IndexRefresher.class);
+
+	private final TaskScheduler taskScheduler;
+	private final Supplier<ReferenceManager<IndexSearcher>> managerSupplier;
+	private final long delayMillis;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final ThreadLocal<Long> refreshStart = new ThreadLocal<>();
+	private final LongAdder reopenCount = new LongAdder();
+	private final LongAdder reopenNanos = new LongAdder();
+	private volatile long lastReopenNanos;
+
+	/**
+	 * @param taskScheduler
+	 *            用于延迟执行刷新
+	 * @param managerSupplier
+	 *            返回当前的SearcherManager，重建索引后会发生变化
+	 * @param delayMillis
+	 *            索引发生变化后最多延迟多久刷新
+	 */
+	IndexRefresher(TaskScheduler taskScheduler, Supplier<ReferenceManager<IndexSearcher>> managerSupplier,
+			long delayMillis) {
+		super();
+		this.taskScheduler = taskScheduler;
+		this.managerSupplier = managerSupplier;
+		this.delayMillis = Math.max(0, delayMillis);
+	}
+
+	/**
+	 * 索引发生了变化，如果还没有安排刷新，那么在延迟之后刷新
+	 */
+	void requestRefresh() {
+		if (scheduled.compareAndSet(false, true)) {
+			taskScheduler.schedule(this::refresh, new Date(System.currentTimeMillis() + delayMillis));
+		}
+	}
+
+	private void refresh() {
+		// 先重置标记，刷新过程中发生的变化会安排下一次刷新
+		scheduled.set(false);
+		try {
+			managerSupplier.get().maybeRefreshBlocking();
+		} catch (AlreadyClosedException e) {
+			// 索引已经被重建或者关闭
+		} catch (IOException e) {
+			LOGGER.warn(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void beforeRefresh() throws IOException {
+		refreshStart.set(System.nanoTime());
+	}
+
+	@Override
+	public void afterRefresh(boolean didRefresh) throws IOException {
+		Long start = refreshStart.get();
+		refreshStart.remove();
+		if (didRefresh && start != null) {
+			long nanos = System.nanoTime() - start;
+			reopenCount.increment();
+			reopenNanos.add(nanos);
+			lastReopenNanos = nanos;
+		}
+	}
+
+	/**
+	 * IndexSearcher被重新打开的次数
+	 * 
+	 * @return
+	 */
+	long getReopenCount() {
+		return reopenCount.sum();
+	}
+
+	/**
+	 * 重新打开IndexSearcher的平均耗时
+	 * 
+	 * @return 毫秒，如果还没有重新打开过，返回0
+	 */
+	double getAverageReopenMillis() {
+		long count = reopenCount.sum();
+		return count == 0 ? 0D : reopenNanos.sum() / 1000000D / count;
+	}
+
+	/**
+	 * 最近一次重新打开IndexSearcher的耗时
+	 * 
+	 * @return 毫秒
+	 */
+	double getLastReopenMillis() {
+		return lastReopenNanos / 1000000D;
+	}
+}
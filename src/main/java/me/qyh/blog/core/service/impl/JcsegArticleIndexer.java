@@ -16,15 +16,28 @@
 package me.qyh.blog.core.service.impl;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Tokenizer;
 import org.lionsoul.jcseg.analyzer.JcsegAnalyzer;
+import org.lionsoul.jcseg.analyzer.JcsegTokenizer;
 import org.lionsoul.jcseg.tokenizer.core.ADictionary;
+import org.lionsoul.jcseg.tokenizer.core.DictionaryFactory;
 import org.lionsoul.jcseg.tokenizer.core.ILexicon;
 import org.lionsoul.jcseg.tokenizer.core.IWord;
+import org.lionsoul.jcseg.tokenizer.core.JcsegException;
 import org.lionsoul.jcseg.tokenizer.core.JcsegTaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.qyh.blog.core.exception.SystemException;
 
 public class JcsegArticleIndexer extends ArticleIndexer {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(JcsegArticleIndexer.class);
+
 	public enum JcsegMode {
 
 		SIMPLE(1), COMPLEX(2), DECECT(3), SEARCH(4);
@@ -40,31 +53,65 @@ public class JcsegArticleIndexer extends ArticleIndexer {
 		}
 	}
 
+	/**
+	 * 通过标签加入到词库中的词，不包括词库中原本就存在的词，只在写线程中修改
+	 * 
+	 * @since 6.7
+	 */
+	private final Set<String> tagWords = new HashSet<>();
+
 	public JcsegArticleIndexer(JcsegMode mode) throws IOException {
 		super(new _Analyzer(mode));
 	}
 
 	@Override
-	public void doRemoveTags(String... tags) {
-		ADictionary dict = ((_Analyzer) analyzer).getDict();
+	public boolean doRemoveTags(String... tags) {
+		boolean changed = false;
 		for (String tag : tags) {
-			dict.remove(ILexicon.CJK_WORD, tag);
+			changed |= tagWords.remove(tag);
+		}
+		// 词库中原本就存在的词不会被删除
+		if (changed) {
+			((_Analyzer) analyzer).reload(tagWords);
 		}
+		return changed;
 	}
 
 	@Override
-	public void doAddTags(String... tags) {
-		ADictionary dict = ((_Analyzer) analyzer).getDict();
+	public boolean doAddTags(String... tags) {
+		_Analyzer _analyzer = (_Analyzer) analyzer;
+		boolean changed = false;
 		for (String tag : tags) {
-			dict.add(ILexicon.CJK_WORD, tag, IWord.T_CJK_WORD);
+			if (!tagWords.contains(tag) && !_analyzer.current.dict.match(ILexicon.CJK_WORD, tag)) {
+				tagWords.add(tag);
+				changed = true;
+			}
 		}
+		if (changed) {
+			_analyzer.reload(tagWords);
+		}
+		return changed;
 	}
 
-	private static final class _Analyzer extends JcsegAnalyzer {
+	/**
+	 * 词库变更时不会修改正在被查询线程使用的词库，而是创建一个新版本的词库后替换
+	 * <p>
+	 * 每个线程缓存的分词器记录了创建时词库的版本，如果词库已经被替换，那么重新创建分词器
+	 * </p>
+	 * 
+	 * @since 6.7
+	 */
+	private static final class _Analyzer extends Analyzer {
+
+		private final int mode;
+		private final JcsegTaskConfig taskConfig;
+		private volatile Dictionary current;
 
 		_Analyzer(JcsegMode mode) {
-			super(mode.mode);
-			JcsegTaskConfig taskConfig = getTaskConfig();
+			super(new VersionReuseStrategy());
+			this.mode = mode.mode;
+			JcsegAnalyzer analyzer = new JcsegAnalyzer(mode.mode);
+			this.taskConfig = analyzer.getTaskConfig();
 			taskConfig.setClearStopwords(true);
 			/**
 			 * http://git.oschina.net/lionsoul/jcseg/issues/24
@@ -73,6 +120,74 @@ public class JcsegArticleIndexer extends ArticleIndexer {
 			taskConfig.setLoadCJKPinyin(false);
 			taskConfig.setLoadCJKSyn(false);
 			taskConfig.setAppendCJKPinyin(false);
+			this.current = new Dictionary(0, analyzer.getDict());
+		}
+
+		/**
+		 * 载入新的词库并加入标签，然后替换当前词库
+		 * 
+		 * @param tagWords
+		 */
+		void reload(Set<String> tagWords) {
+			long start = System.currentTimeMillis();
+			ADictionary dict = DictionaryFactory.createDefaultDictionary(taskConfig);
+			for (String tag : tagWords) {
+				dict.add(ILexicon.CJK_WORD, tag, IWord.T_CJK_WORD);
+			}
+			current = new Dictionary(current.version + 1, dict);
+			LOGGER.debug("载入词库花费了：" + (System.currentTimeMillis() - start) + "ms");
+		}
+
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Dictionary dictionary = current;
+			try {
+				Tokenizer tokenizer = new JcsegTokenizer(mode, taskConfig, dictionary.dict);
+				return new VersionedComponents(tokenizer, dictionary.version);
+			} catch (JcsegException | IOException e) {
+				throw new SystemException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private static final class Dictionary {
+		private final int version;
+		private final ADictionary dict;
+
+		Dictionary(int version, ADictionary dict) {
+			super();
+			this.version = version;
+			this.dict = dict;
+		}
+	}
+
+	private static final class VersionedComponents extends Analyzer.TokenStreamComponents {
+		private final int version;
+
+		VersionedComponents(Tokenizer tokenizer, int version) {
+			super(tokenizer);
+			this.version = version;
+		}
+	}
+
+	/**
+	 * 所有字段共用一个分词器，词库版本不一致时不再复用
+	 */
+	private static final class VersionReuseStrategy extends Analyzer.ReuseStrategy {
+
+		@Override
+		public Analyzer.TokenStreamComponents getReusableComponents(Analyzer analyzer, String fieldName) {
+			VersionedComponents components = (VersionedComponents) getStoredValue(analyzer);
+			if (components != null && components.version != ((_Analyzer) analyzer).current.version) {
+				return null;
+			}
+			return components;
+		}
+
+		@Override
+		public void setReusableComponents(Analyzer analyzer, String fieldName,
+				Analyzer.TokenStreamComponents components) {
+			setStoredValue(analyzer, components);
 		}
 	}
 
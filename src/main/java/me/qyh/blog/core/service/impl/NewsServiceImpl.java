@@ -22,13 +22,19 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -62,9 +68,31 @@ public class NewsServiceImpl implements NewsService, ApplicationEventPublisherAw
 	private HitsStrategy<News> hitsStrategy;
 	@Autowired
 	private LockManager lockManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private TaskScheduler taskScheduler;
 
 	private ApplicationEventPublisher applicationEventPublisher;
 
+	/**
+	 * 默认点击策略刷新点击数的间隔
+	 * 
+	 * @since 6.7
+	 */
+	private int hitsFlushSec;
+
+	/**
+	 * 默认点击策略每批次更新的动态数
+	 * 
+	 * @since 6.7
+	 */
+	private int hitsFlushNum;
+
+	private DefaultHitsStrategy defaultHitsStrategy;
+
 	private static final String COMMENT_MODULE_NAME = "news";
 
 	@Override
@@ -226,15 +254,15 @@ public class NewsServiceImpl implements NewsService, ApplicationEventPublisherAw
 			commentServer = EmptyCommentServer.INSTANCE;
 		}
 		if (hitsStrategy == null) {
-			hitsStrategy = new HitsStrategy<News>() {
-
-				@Override
-				public void hit(News news) {
-					synchronized (this) {
-						newsDao.updateHits(news.getId(), newsDao.selectHits(news.getId()) + 1);
-					}
-				}
-			};
+			if (hitsFlushSec <= 0) {
+				hitsFlushSec = 10;
+			}
+			if (hitsFlushNum <= 0) {
+				hitsFlushNum = 50;
+			}
+			defaultHitsStrategy = new DefaultHitsStrategy(hitsFlushNum);
+			hitsStrategy = defaultHitsStrategy;
+			taskScheduler.scheduleAtFixedRate(() -> defaultHitsStrategy.flush(false), hitsFlushSec * 1000L);
 		}
 	}
 
@@ -243,4 +271,68 @@ public class NewsServiceImpl implements NewsService, ApplicationEventPublisherAw
 		newsDao.deleteLock(event.getLock().getId());
 	}
 
+	@EventListener
+	public void handleNewsDeleteEvent(NewsDelEvent event) {
+		if (defaultHitsStrategy != null) {
+			event.getNewsList().stream().map(News::getId).forEach(defaultHitsStrategy::remove);
+		}
+	}
+
+	@EventListener
+	public void handleContextCloseEvent(ContextClosedEvent event) {
+		if (event.getApplicationContext().getParent() != null) {
+			return;
+		}
+		if (defaultHitsStrategy != null) {
+			defaultHitsStrategy.flush(true);
+		}
+	}
+
+	public void setHitsFlushSec(int hitsFlushSec) {
+		this.hitsFlushSec = hitsFlushSec;
+	}
+
+	public void setHitsFlushNum(int hitsFlushNum) {
+		this.hitsFlushNum = hitsFlushNum;
+	}
+
+	@Override
+	public long getHitsLastFlushMillis() {
+		return defaultHitsStrategy == null ? -1 : defaultHitsStrategy.getLastFlushMillis();
+	}
+
+	@Override
+	public int getHitsPendingSize() {
+		return defaultHitsStrategy == null ? -1 : defaultHitsStrategy.getPendingSize();
+	}
+
+	/**
+	 * 默认动态点击策略，每次点击都会增加点击量，点击数每隔一段时间批量刷入数据库
+	 * 
+	 * @author mhlx
+	 *
+	 */
+	private final class DefaultHitsStrategy extends WriteBehindHitsStrategy<News> {
+
+		DefaultHitsStrategy(int flushNum) {
+			super(transactionManager, flushNum);
+		}
+
+		@Override
+		protected void doFlush(Map<Integer, Integer> increments, boolean contextClose) {
+			try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+				NewsDao newsDao = sqlSession.getMapper(NewsDao.class);
+				int num = 0;
+				for (Map.Entry<Integer, Integer> it : increments.entrySet()) {
+					newsDao.addHits(it.getKey(), it.getValue());
+					num++;
+					if (num % flushNum == 0) {
+						sqlSession.commit();
+					}
+				}
+				sqlSession.commit();
+			}
+		}
+	}
+
 }
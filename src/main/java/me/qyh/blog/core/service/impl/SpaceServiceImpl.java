@@ -132,7 +132,7 @@ public class SpaceServiceImpl implements SpaceService, ApplicationEventPublisher
 				}
 				return replace;
 			});
-			articleIndexer.rebuildIndex();
+			articleIndexer.reindexSpace(space.getId());
 		});
 
 		this.applicationEventPublisher.publishEvent(new SpaceUpdateEvent(this, db, space));
@@ -158,7 +158,8 @@ public class SpaceServiceImpl implements SpaceService, ApplicationEventPublisher
 
 		Transactions.afterCommit(() -> {
 			cache.removeIf(remove -> remove.getId().equals(id));
-			articleIndexer.rebuildIndex();
+			// 空间下的文章已经被移动到默认空间
+			articleIndexer.reindexSpace(id);
 		});
 	}
 
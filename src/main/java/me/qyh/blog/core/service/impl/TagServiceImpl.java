@@ -16,6 +16,7 @@
 package me.qyh.blog.core.service.impl;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -79,9 +80,7 @@ public class TagServiceImpl implements TagService {
 		}
 
 		Transactions.afterCommit(() -> {
-			articleIndexer.removeTags(db.getName());
-			articleIndexer.addTags(tag.getName());
-			articleIndexer.rebuildIndex();
+			articleIndexer.changeTags(Set.of(db.getName()), Set.of(tag.getName()));
 		});
 
 		return tag;
@@ -98,8 +97,7 @@ public class TagServiceImpl implements TagService {
 		tagDao.deleteById(id);
 
 		Transactions.afterCommit(() -> {
-			articleIndexer.removeTags(db.getName());
-			articleIndexer.rebuildIndex();
+			articleIndexer.changeTags(Set.of(db.getName()), Set.of());
 		});
 	}
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import me.qyh.blog.core.entity.BaseEntity;
+import me.qyh.blog.core.exception.SystemException;
+import me.qyh.blog.core.service.HitsStrategy;
+
+/**
+ * 默认的点击策略，点击时只累加内存中的增量，由定时任务批量刷入数据库
+ * <p>
+ * 点击过程不加锁，也不访问数据库，每次刷新时通过<code>hits = hits + ?</code>的批量语句写入增量
+ * </p>
+ * <p>
+ * <b>在两次刷新之间，数据库中的点击数会小于实际点击数</b>
+ * </p>
+ * 
+ * @since 6.7
+ * @param <E>
+ */
+abstract class WriteBehindHitsStrategy<E extends BaseEntity> implements HitsStrategy<E> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindHitsStrategy.class);
+
+	/**
+	 * 待刷新的点击增量
+	 */
+	private final Map<Integer, LongAdder> deltas = new ConcurrentHashMap<>();
+
+	private final PlatformTransactionManager transactionManager;
+
+	/**
+	 * 每批次最多执行的更新语句数
+	 */
+	protected final int flushNum;
+
+	private volatile long lastFlushMillis;
+
+	WriteBehindHitsStrategy(PlatformTransactionManager transactionManager, int flushNum) {
+		if (flushNum < 1) {
+			throw new SystemException("flushNum不能小于1");
+		}
+		this.transactionManager = transactionManager;
+		this.flushNum = flushNum;
+	}
+
+	@Override
+	public void hit(E e) {
+		// 在compute中累加，保证不会累加到一个刚刚被移除的增量上
+		deltas.compute(e.getId(), (k, adder) -> {
+			LongAdder result = adder == null ? new LongAdder() : adder;
+			result.increment();
+			return result;
+		});
+	}
+
+	/**
+	 * 将当前累积的点击增量刷入数据库
+	 * 
+	 * @param contextClose
+	 *            是否在容器关闭时调用
+	 */
+	synchronized void flush(boolean contextClose) {
+		Map<Integer, Integer> increments = new HashMap<>();
+		for (Iterator<Entry<Integer, LongAdder>> iter = deltas.entrySet().iterator(); iter.hasNext();) {
+			Entry<Integer, LongAdder> entry = iter.next();
+			int delta = (int) entry.getValue().sumThenReset();
+			if (delta == 0) {
+				// 只有在增量仍然为0时才移除，避免丢失sum和remove之间的点击
+				deltas.computeIfPresent(entry.getKey(), (k, adder) -> adder.sum() == 0 ? null : adder);
+			} else {
+				increments.put(entry.getKey(), delta);
+			}
+		}
+		if (increments.isEmpty()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try {
+			Transactions.executeInTransaction(transactionManager, status -> {
+				doFlush(increments, contextClose);
+			});
+		} catch (RuntimeException e) {
+			// 放回增量，等待下次刷新
+			increments.forEach((id, delta) -> deltas.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+			LOGGER.error("刷新点击数失败:" + e.getMessage(), e);
+			return;
+		}
+		lastFlushMillis = System.currentTimeMillis() - start;
+	}
+
+	/**
+	 * 删除某个实体待刷新的点击增量
+	 * 
+	 * @param id
+	 */
+	void remove(Integer id) {
+		deltas.remove(id);
+	}
+
+	/**
+	 * 批量写入点击增量，该方法在事务中执行
+	 * 
+	 * @param increments
+	 *            key实体ID value<b>增加的</b>点击数
+	 * @param contextClose
+	 *            是否在容器关闭时调用
+	 */
+	protected abstract void doFlush(Map<Integer, Integer> increments, boolean contextClose);
+
+	/**
+	 * 最近一次刷新花费的时间(ms)
+	 * 
+	 * @return
+	 */
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+
+	/**
+	 * 等待刷新的实体数
+	 * 
+	 * @return
+	 */
+	public int getPendingSize() {
+		return deltas.size();
+	}
+}
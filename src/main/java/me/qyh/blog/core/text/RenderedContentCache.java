@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.util.DigestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * 渲染后内容的缓存，例如markdown转化后的html
+ * <p>
+ * 缓存的key由类型、id以及原文本的md5组成，原文本改变后不会命中旧的缓存，
+ * 调用{@link #invalidate(Integer)}只是为了尽早释放旧的缓存
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class RenderedContentCache {
+
+	private final Cache<Key, String> cache;
+
+	/**
+	 * 每个对象的缓存key，缓存被移除时同步删除
+	 */
+	private final Map<Integer, Set<Key>> keysById = new ConcurrentHashMap<>();
+
+	public RenderedContentCache(long maxSize) {
+		super();
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize).writer(new KeyIndexWriter()).recordStats().build();
+	}
+
+	/**
+	 * 获取渲染后的内容，如果缓存中不存在，则渲染并放入缓存
+	 * 
+	 * @param type
+	 *            类型，例如文章内容和文章摘要，渲染方式不同的内容需要使用不同的类型
+	 * @param id
+	 *            所属对象的id
+	 * @param text
+	 *            原文本
+	 * @param renderer
+	 *            渲染方法
+	 * @return 渲染后的内容
+	 */
+	public String get(String type, Integer id, String text, Function<String, String> renderer) {
+		if (text == null) {
+			return renderer.apply(text);
+		}
+		return cache.get(new Key(type, id, text), key -> {
+			String rendered = renderer.apply(text);
+			if (rendered != null) {
+				index(key);
+			}
+			return rendered;
+		});
+	}
+
+	/**
+	 * 批量获取渲染后的内容，未命中的内容会通过一次批量渲染得到
+	 * 
+	 * @param type
+	 *            类型
+	 * @param textMap
+	 *            key:id,v:原文本
+	 * @param renderer
+	 *            批量渲染方法
+	 * @return key:id,v:渲染后的内容
+	 */
+	public Map<Integer, String> getAll(String type, Map<Integer, String> textMap,
+			Function<Map<Integer, String>, Map<Integer, String>> renderer) {
+		Map<Integer, String> result = new HashMap<>();
+		Map<Integer, String> misses = new HashMap<>();
+		textMap.forEach((id, text) -> {
+			String rendered = text == null ? null : cache.getIfPresent(new Key(type, id, text));
+			if (rendered == null) {
+				misses.put(id, text);
+			} else {
+				result.put(id, rendered);
+			}
+		});
+		if (!misses.isEmpty()) {
+			renderer.apply(misses).forEach((id, rendered) -> {
+				String text = misses.get(id);
+				if (text != null && rendered != null) {
+					Key key = new Key(type, id, text);
+					index(key);
+					cache.put(key, rendered);
+				}
+				result.put(id, rendered);
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 删除某个对象所有的缓存
+	 * 
+	 * @param id
+	 */
+	public void invalidate(Integer id) {
+		Set<Key> keys = keysById.get(id);
+		if (keys != null) {
+			cache.invalidateAll(List.copyOf(keys));
+		}
+	}
+
+	private void index(Key key) {
+		keysById.compute(key.id, (id, keys) -> {
+			Set<Key> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+			result.add(key);
+			return result;
+		});
+	}
+
+	private void unindex(Key key) {
+		keysById.computeIfPresent(key.id, (id, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * 缓存的统计信息，包括命中率等
+	 * 
+	 * @return
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public double hitRate() {
+		return cache.stats().hitRate();
+	}
+
+	private final class KeyIndexWriter implements CacheWriter<Key, String> {
+
+		@Override
+		public void write(Key key, String value) {
+			// 在放入缓存之前已经记录
+		}
+
+		@Override
+		public void delete(Key key, String value, RemovalCause cause) {
+			unindex(key);
+		}
+	}
+
+	private static final class Key {
+		private final String type;
+		private final Integer id;
+		private final String digest;
+
+		Key(String type, Integer id, String text) {
+			super();
+			this.type = type;
+			this.id = id;
+			this.digest = DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, id, digest);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return Objects.equals(digest, other.digest) && Objects.equals(id, other.id)
+					&& Objects.equals(type, other.type);
+		}
+	}
+}
@@ -270,6 +270,34 @@ public class Times {
 		return date.atZone(ZoneOffset.systemDefault()).toInstant().toEpochMilli();
 	}
 
+	/**
+	 * 解析时长，支持s(秒)、m(分钟)、h(小时)后缀，没有后缀时为秒，例如60s、5m、1h
+	 * 
+	 * @since 6.7
+	 * @param text
+	 * @return 秒数，如果无法解析，返回0
+	 */
+	public static long parseSeconds(String text) {
+		if (text == null) {
+			return 0;
+		}
+		String value = text.trim().toLowerCase();
+		if (value.isEmpty()) {
+			return 0;
+		}
+		long unit = 1;
+		char last = value.charAt(value.length() - 1);
+		if (last == 's' || last == 'm' || last == 'h') {
+			unit = last == 's' ? 1 : last == 'm' ? 60 : 3600;
+			value = value.substring(0, value.length() - 1);
+		}
+		try {
+			return Long.parseLong(value) * unit;
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
 	private static final class DateTimeFormatterWrapper {
 		private final String pattern;
 		private final int length;
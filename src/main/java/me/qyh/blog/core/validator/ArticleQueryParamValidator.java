@@ -35,6 +35,7 @@ public class ArticleQueryParamValidator implements Validator {
 
 	private static final int MAX_QUERY_LENGTH = 40;
 	private static final int MAX_TAG_LENGTH = 20;
+	private static final int MAX_CURSOR_LENGTH = 512;
 
 	private static final int MAX_SPACES_ALIAS_SIZE = 10;
 
@@ -53,6 +54,10 @@ public class ArticleQueryParamValidator implements Validator {
 		if (query != null && query.length() > MAX_QUERY_LENGTH) {
 			param.setQuery(query.substring(0, MAX_QUERY_LENGTH));
 		}
+		String cursor = param.getCursor();
+		if (cursor != null && cursor.length() > MAX_CURSOR_LENGTH) {
+			param.setCursor(null);
+		}
 		String tag = param.getTag();
 		if (tag != null && tag.length() > MAX_TAG_LENGTH) {
 			param.setTag(tag.substring(0, MAX_TAG_LENGTH));
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.vo;
+
+import java.util.Map;
+
+import me.qyh.blog.core.entity.Article.ArticleFrom;
+
+/**
+ * 文章的分面统计
+ * <p>
+ * 统计结果来自文章索引，只包含已经发布的文章
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class ArticleFacets {
+
+	private final int total;
+	private final Map<String, Integer> tags;
+	private final Map<Integer, Integer> spaces;
+	private final Map<String, Integer> months;
+	private final Map<ArticleFrom, Integer> froms;
+
+	public ArticleFacets(int total, Map<String, Integer> tags, Map<Integer, Integer> spaces,
+			Map<String, Integer> months, Map<ArticleFrom, Integer> froms) {
+		super();
+		this.total = total;
+		this.tags = tags;
+		this.spaces = spaces;
+		this.months = months;
+		this.froms = froms;
+	}
+
+	/**
+	 * 符合条件的文章总数
+	 * 
+	 * @return
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * key:标签名，value:文章数，按照文章数降序排列
+	 * 
+	 * @return
+	 */
+	public Map<String, Integer> getTags() {
+		return tags;
+	}
+
+	/**
+	 * key:空间id，value:文章数
+	 * 
+	 * @return
+	 */
+	public Map<Integer, Integer> getSpaces() {
+		return spaces;
+	}
+
+	/**
+	 * key:发布年月(yyyy-MM)，value:文章数，按照年月降序排列
+	 * 
+	 * @return
+	 */
+	public Map<String, Integer> getMonths() {
+		return months;
+	}
+
+	/**
+	 * key:文章来源，value:文章数
+	 * 
+	 * @return
+	 */
+	public Map<ArticleFrom, Integer> getFroms() {
+		return froms;
+	}
+}
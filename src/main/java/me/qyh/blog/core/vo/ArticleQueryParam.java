@@ -74,6 +74,13 @@ public class ArticleQueryParam extends PageQueryParam {
 	 */
 	private Integer tagId;
 
+	/**
+	 * 全文检索时下一页的游标，如果不为null，将忽略当前页码
+	 * 
+	 * @since 6.7
+	 */
+	private String cursor;
+
 	public ArticleQueryParam() {
 		super();
 	}
@@ -97,6 +104,7 @@ public class ArticleQueryParam extends PageQueryParam {
 		this.spaces = param.spaces;
 		this.spaceIds = param.spaceIds;
 		this.tagId = param.tagId;
+		this.cursor = param.cursor;
 	}
 
 	public Space getSpace() {
@@ -231,6 +239,14 @@ public class ArticleQueryParam extends PageQueryParam {
 		this.ignorePaging = ignorePaging;
 	}
 
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
 	@Override
 	public String toString() {
 		return "ArticleQueryParam [space=" + space + ", begin=" + begin + ", end=" + end + ", query=" + query
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.vo;
+
+/**
+ * 搜索建议
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class ArticleSuggestion {
+
+	public enum SuggestionType {
+		TITLE, ALIAS, TAG
+	}
+
+	private final SuggestionType type;
+	private final String text;
+	private final Integer articleId;
+	private final String alias;
+
+	public ArticleSuggestion(SuggestionType type, String text, Integer articleId, String alias) {
+		super();
+		this.type = type;
+		this.text = text;
+		this.articleId = articleId;
+		this.alias = alias;
+	}
+
+	public SuggestionType getType() {
+		return type;
+	}
+
+	/**
+	 * 建议的文本，例如文章标题或者标签名
+	 * 
+	 * @return
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * 文章id，如果是标签，返回null
+	 * 
+	 * @return
+	 */
+	public Integer getArticleId() {
+		return articleId;
+	}
+
+	/**
+	 * 文章别名，如果是标签或者文章没有别名，返回null
+	 * 
+	 * @return
+	 */
+	public String getAlias() {
+		return alias;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.vo;
+
+import java.util.List;
+
+/**
+ * 基于游标的分页结果
+ * <p>
+ * 通过{@link #getNextCursor()}获取下一页的游标，游标为不透明的字符串，只能原样传回
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class CursorPageResult<T> extends PageResult<T> {
+
+	private final String nextCursor;
+
+	public CursorPageResult(PageQueryParam param, int totalRow, List<T> datas, String nextCursor) {
+		super(param, totalRow, datas);
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * 下一页的游标
+	 * 
+	 * @return 如果没有下一页，返回null
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.vo;
+
+/**
+ * 索引统计
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class IndexStatistics {
+
+	private final int segmentCount;
+	private final int smallSegmentCount;
+	private final int numDocs;
+	private final int deletedDocs;
+	private final long sizeInBytes;
+	private final int searchSlices;
+
+	public IndexStatistics(int segmentCount, int smallSegmentCount, int numDocs, int deletedDocs, long sizeInBytes,
+			int searchSlices) {
+		super();
+		this.segmentCount = segmentCount;
+		this.smallSegmentCount = smallSegmentCount;
+		this.numDocs = numDocs;
+		this.deletedDocs = deletedDocs;
+		this.sizeInBytes = sizeInBytes;
+		this.searchSlices = searchSlices;
+	}
+
+	/**
+	 * 当前IndexSearcher中的段数
+	 * 
+	 * @return
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * 文档数不到合并后每个段的一半的段数，超过阈值时会被合并
+	 * 
+	 * @return
+	 */
+	public int getSmallSegmentCount() {
+		return smallSegmentCount;
+	}
+
+	/**
+	 * 索引中的文章数，不包括已经删除的文档
+	 * 
+	 * @return
+	 */
+	public int getNumDocs() {
+		return numDocs;
+	}
+
+	/**
+	 * 已经被删除但是还没有被合并掉的文档数
+	 * 
+	 * @return
+	 */
+	public int getDeletedDocs() {
+		return deletedDocs;
+	}
+
+	/**
+	 * 已删除文档占全部文档的比例
+	 * 
+	 * @return
+	 */
+	public double getDeletedRatio() {
+		int maxDoc = numDocs + deletedDocs;
+		return maxDoc == 0 ? 0D : (double) deletedDocs / maxDoc;
+	}
+
+	/**
+	 * 索引文件的大小(字节)
+	 * 
+	 * @return
+	 */
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * 查询时并行搜索的分片数，如果为1，那么在当前线程中搜索
+	 * 
+	 * @return
+	 */
+	public int getSearchSlices() {
+		return searchSlices;
+	}
+}
@@ -32,6 +32,8 @@ import me.qyh.blog.core.plugin.TemplateRegistry;
 import me.qyh.blog.core.util.Resources;
 import me.qyh.blog.plugin.comment.data.CommentsDataTagProcessor;
 import me.qyh.blog.plugin.comment.data.LastCommentsDataTagProcessor;
+import me.qyh.blog.plugin.comment.event.CommentEvent;
+import me.qyh.blog.template.render.EventEvictSupport;
 
 public class CommentPluginHandler extends PluginHandlerSupport {
 
@@ -51,6 +53,13 @@ public class CommentPluginHandler extends PluginHandlerSupport {
 		this.messages = applicationContext.getBean(Messages.class);
 	}
 
+	@Override
+	public void initChild(ApplicationContext applicationContext) throws Exception {
+		// 页面缓存、页面版本、fragment以及data标签的缓存
+		applicationContext.getBeansOfType(EventEvictSupport.class).values()
+				.forEach(support -> support.evictOn(CommentEvent.class));
+	}
+
 	@Override
 	protected void registerBean(BeanRegistry registry) {
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.plugin.comment.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import me.qyh.blog.core.entity.Space;
+import me.qyh.blog.core.service.impl.Transactions;
+import me.qyh.blog.plugin.comment.entity.CommentModule;
+
+/**
+ * 评论数缓存
+ * <p>
+ * 缓存某个模块项目的评论数以及某个空间下某个模块的总评论数，首次查询时从数据库中载入。
+ * 评论发生变化后删除对应的缓存，如果当前处于事务中，事务提交后会再次删除，防止并发查询时载入未提交前的评论数
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class CommentCountCache {
+
+	private final Cache<CommentModule, Integer> counts;
+	private final Cache<SpaceKey, Integer> spaceCounts = Caffeine.newBuilder().maximumSize(1000).build();
+
+	CommentCountCache(long maxSize) {
+		super();
+		this.counts = Caffeine.newBuilder().maximumSize(maxSize).build();
+	}
+
+	/**
+	 * 查询某个模块项目的评论数
+	 * 
+	 * @param module
+	 * @param loader
+	 * @return
+	 */
+	int get(CommentModule module, Function<CommentModule, Integer> loader) {
+		return counts.get(module, loader);
+	}
+
+	/**
+	 * 批量查询某个模块的评论数，未命中的项目通过一次查询载入
+	 * 
+	 * @param moduleName
+	 * @param ids
+	 * @param loader
+	 *            批量查询方法，没有评论的项目可以不返回
+	 * @return key:项目id,value:评论数，包含评论数为0的项目
+	 */
+	Map<Integer, Integer> getAll(String moduleName, Collection<Integer> ids,
+			Function<Collection<Integer>, Map<Integer, Integer>> loader) {
+		Map<Integer, Integer> result = new HashMap<>();
+		List<Integer> misses = new ArrayList<>();
+		for (Integer id : ids) {
+			Integer count = counts.getIfPresent(new CommentModule(moduleName, id));
+			if (count == null) {
+				misses.add(id);
+			} else {
+				result.put(id, count);
+			}
+		}
+		if (!misses.isEmpty()) {
+			Map<Integer, Integer> loaded = loader.apply(misses);
+			for (Integer id : misses) {
+				int count = loaded.getOrDefault(id, 0);
+				counts.put(new CommentModule(moduleName, id), count);
+				result.put(id, count);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 查询某个空间下某个模块的评论总数
+	 * 
+	 * @param moduleName
+	 * @param space
+	 *            空间，如果为null，查询所有空间
+	 * @param queryPrivate
+	 * @param loader
+	 * @return
+	 */
+	int getSpaceCount(String moduleName, Space space, boolean queryPrivate, Supplier<Integer> loader) {
+		return spaceCounts.get(new SpaceKey(moduleName, space == null ? null : space.getId(), queryPrivate),
+				key -> loader.get());
+	}
+
+	/**
+	 * 某个模块项目的评论发生了变化
+	 * 
+	 * @param module
+	 */
+	void invalidate(CommentModule module) {
+		doInvalidate(module);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			Transactions.afterCommit(() -> doInvalidate(module));
+		}
+	}
+
+	/**
+	 * 项目的状态发生了变化(例如文章被删除或者设置为私人)，此时只需要删除空间的评论总数
+	 */
+	void invalidateSpaceCounts() {
+		spaceCounts.invalidateAll();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			Transactions.afterCommit(spaceCounts::invalidateAll);
+		}
+	}
+
+	private void doInvalidate(CommentModule module) {
+		counts.invalidate(module);
+		spaceCounts.invalidateAll();
+	}
+
+	private static final class SpaceKey {
+		private final String moduleName;
+		private final Integer spaceId;
+		private final boolean queryPrivate;
+
+		SpaceKey(String moduleName, Integer spaceId, boolean queryPrivate) {
+			super();
+			this.moduleName = moduleName;
+			this.spaceId = spaceId;
+			this.queryPrivate = queryPrivate;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(moduleName, spaceId, queryPrivate);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			SpaceKey other = (SpaceKey) obj;
+			return queryPrivate == other.queryPrivate && Objects.equals(moduleName, other.moduleName)
+					&& Objects.equals(spaceId, other.spaceId);
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.plugin.comment.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+import org.springframework.util.DigestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import me.qyh.blog.core.exception.SystemException;
+import me.qyh.blog.core.vo.Limit;
+import me.qyh.blog.plugin.comment.entity.CommentModule;
+
+/**
+ * 评论频率限制以及重复评论判断
+ * <p>
+ * 频率限制通过分段的滑动窗口实现，每个(ip,模块)对应一个窗口，窗口按照key分段加锁，每段最多保存maxKeysPerStripe个窗口，超出时移除最久未访问的窗口。
+ * 内存中不存在窗口时(例如重启或者被移除)，通过数据库查询时间段内的评论数来初始化窗口
+ * </p>
+ * <p>
+ * 每个模块保存最近几条评论内容的MD5摘要，用于判断同一ip是否对同一评论重复回复了相同的内容，如果摘要中不存在该ip的记录，需要通过数据库判断
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class CommentRateLimiter {
+
+	/**
+	 * 每个窗口的分段数
+	 */
+	private static final int BUCKETS = 10;
+
+	/**
+	 * 每个模块保存的评论摘要数
+	 */
+	private static final int RING_SIZE = 16;
+
+	private final Stripe[] stripes;
+	private final Cache<CommentModule, ContentRing> rings = Caffeine.newBuilder().maximumSize(1000).build();
+
+	CommentRateLimiter(int stripeCount, int maxKeysPerStripe) {
+		super();
+		if (stripeCount < 1 || maxKeysPerStripe < 1) {
+			throw new SystemException("stripeCount和maxKeysPerStripe不能小于1");
+		}
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe(maxKeysPerStripe);
+		}
+	}
+
+	/**
+	 * 尝试记录一次评论
+	 * 
+	 * @param ip
+	 * @param module
+	 * @param limit
+	 * @param now
+	 * @param coldCount
+	 *            内存中不存在窗口时，用来查询时间段内已经存在的评论数
+	 * @return 如果超出限制，返回false，此时不会记录
+	 */
+	boolean tryAcquire(String ip, CommentModule module, Limit limit, long now, IntSupplier coldCount) {
+		Key key = new Key(ip, module);
+		Stripe stripe = stripeFor(key);
+		long windowMillis = limit.toMill();
+		int cold = stripe.contains(key, windowMillis) ? 0 : coldCount.getAsInt();
+		stripe.lock.lock();
+		try {
+			Window window = stripe.windows.get(key);
+			if (window == null || window.windowMillis != windowMillis) {
+				window = new Window(windowMillis);
+				window.add(now, cold);
+				stripe.windows.put(key, window);
+			}
+			if (window.count(now) + 1 > limit.getCount()) {
+				return false;
+			}
+			window.add(now, 1);
+			return true;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * 撤销一次记录，例如评论插入失败
+	 * 
+	 * @param ip
+	 * @param module
+	 * @param time
+	 *            记录时的时间
+	 */
+	void release(String ip, CommentModule module, long time) {
+		Key key = new Key(ip, module);
+		Stripe stripe = stripeFor(key);
+		stripe.lock.lock();
+		try {
+			Window window = stripe.windows.get(key);
+			if (window != null) {
+				window.remove(time);
+			}
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * 判断同一ip是否已经对同一父评论回复过相同的内容
+	 * 
+	 * @param ip
+	 * @param module
+	 * @param parentId
+	 *            父评论id，如果为null，说明是评论
+	 * @param content
+	 * @return 如果内存中不存在该ip的记录，返回{@link Optional#empty()}，此时需要通过数据库判断
+	 */
+	Optional<Boolean> isDuplicate(String ip, CommentModule module, Integer parentId, String content) {
+		ContentRing ring = rings.getIfPresent(module);
+		if (ring == null) {
+			return Optional.empty();
+		}
+		return ring.isDuplicate(ip, parentId, digest(content));
+	}
+
+	/**
+	 * 记录一条评论的内容摘要，应该在评论插入成功之后调用
+	 * 
+	 * @param ip
+	 * @param module
+	 * @param parentId
+	 * @param content
+	 */
+	void record(String ip, CommentModule module, Integer parentId, String content) {
+		rings.get(module, k -> new ContentRing()).add(ip, parentId, digest(content));
+	}
+
+	/**
+	 * 删除某个模块的评论摘要，评论被删除后调用
+	 * 
+	 * @param module
+	 */
+	void forget(CommentModule module) {
+		rings.invalidate(module);
+	}
+
+	private Stripe stripeFor(Key key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return stripes[Math.floorMod(h, stripes.length)];
+	}
+
+	private static String digest(String content) {
+		return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static final class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Map<Key, Window> windows;
+
+		Stripe(int maxKeys) {
+			this.windows = new LinkedHashMap<>(16, 0.75F, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Window> eldest) {
+					return size() > maxKeys;
+				}
+			};
+		}
+
+		boolean contains(Key key, long windowMillis) {
+			lock.lock();
+			try {
+				Window window = windows.get(key);
+				return window != null && window.windowMillis == windowMillis;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 按时间分段的滑动窗口，精度为一个分段
+	 */
+	private static final class Window {
+		private final long windowMillis;
+		private final long bucketMillis;
+		private final long[] stamps = new long[BUCKETS];
+		private final int[] counts = new int[BUCKETS];
+
+		Window(long windowMillis) {
+			this.windowMillis = windowMillis;
+			this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+			Arrays.fill(stamps, -1);
+		}
+
+		void add(long time, int delta) {
+			if (delta <= 0) {
+				return;
+			}
+			long stamp = time / bucketMillis;
+			int slot = (int) (stamp % BUCKETS);
+			if (stamps[slot] != stamp) {
+				stamps[slot] = stamp;
+				counts[slot] = 0;
+			}
+			counts[slot] += delta;
+		}
+
+		void remove(long time) {
+			long stamp = time / bucketMillis;
+			int slot = (int) (stamp % BUCKETS);
+			if (stamps[slot] == stamp && counts[slot] > 0) {
+				counts[slot]--;
+			}
+		}
+
+		int count(long now) {
+			long current = now / bucketMillis;
+			int count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				if (stamps[i] > current - BUCKETS) {
+					count += counts[i];
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * 某个模块最近的评论摘要
+	 */
+	private static final class ContentRing {
+		private final String[] ips = new String[RING_SIZE];
+		private final Integer[] parentIds = new Integer[RING_SIZE];
+		private final String[] digests = new String[RING_SIZE];
+		private int next;
+
+		synchronized void add(String ip, Integer parentId, String digest) {
+			ips[next] = ip;
+			parentIds[next] = parentId;
+			digests[next] = digest;
+			next = (next + 1) % RING_SIZE;
+		}
+
+		synchronized Optional<Boolean> isDuplicate(String ip, Integer parentId, String digest) {
+			// 从最近的记录开始查找
+			for (int i = 1; i <= RING_SIZE; i++) {
+				int slot = Math.floorMod(next - i, RING_SIZE);
+				if (ips[slot] == null) {
+					break;
+				}
+				if (ips[slot].equals(ip) && Objects.equals(parentIds[slot], parentId)) {
+					return Optional.of(digests[slot].equals(digest));
+				}
+			}
+			return Optional.empty();
+		}
+	}
+
+	private static final class Key {
+		private final String ip;
+		private final CommentModule module;
+
+		Key(String ip, CommentModule module) {
+			super();
+			this.ip = ip;
+			this.module = module;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(ip, module);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return Objects.equals(ip, other.ip) && Objects.equals(module, other.module);
+		}
+	}
+}
@@ -37,7 +37,6 @@ import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.locks.StampedLock;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.jsoup.Jsoup;
@@ -62,10 +61,18 @@ import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.entity.Editor;
 import me.qyh.blog.core.entity.Space;
 import me.qyh.blog.core.entity.User;
+import me.qyh.blog.core.event.ArticleDelEvent;
+import me.qyh.blog.core.event.ArticlePublishEvent;
+import me.qyh.blog.core.event.ArticleUpdateEvent;
+import me.qyh.blog.core.event.NewsDelEvent;
+import me.qyh.blog.core.event.NewsUpdateEvent;
+import me.qyh.blog.core.event.SpaceDelEvent;
+import me.qyh.blog.core.event.SpaceUpdateEvent;
 import me.qyh.blog.core.exception.LogicException;
 import me.qyh.blog.core.exception.SystemException;
 import me.qyh.blog.core.service.CommentServer;
 import me.qyh.blog.core.service.UserService;
+import me.qyh.blog.core.service.impl.Transactions;
 import me.qyh.blog.core.text.CommonMarkdown2Html;
 import me.qyh.blog.core.text.HtmlClean;
 import me.qyh.blog.core.text.Markdown2Html;
@@ -115,6 +122,9 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 	private static final String COMMENT_PAGESIZE = "commentConfig.pageSize";
 	private static final String COMMENT_NICKNAME = "commentConfig.nickname";
 
+	private final CommentCountCache countCache = new CommentCountCache(5000);
+	private final CommentRateLimiter rateLimiter = new CommentRateLimiter(16, 1000);
+
 	private final Comparator<Comment> ascCommentComparator = Comparator.comparing(Comment::getCommentDate)
 			.thenComparing(Comment::getId);
 	private final Comparator<Comment> descCommentComparator = (t1, t2) -> -ascCommentComparator.compare(t1, t2);
@@ -163,6 +173,7 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 			throw new LogicException("comment.checked", "评论审核过了");
 		}
 		commentDao.updateStatusToNormal(comment);
+		countCache.invalidate(comment.getCommentModule());
 
 		return comment;
 	}
@@ -182,6 +193,8 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		}
 		commentDao.deleteByPath(comment.getParentPath() + comment.getId());
 		commentDao.deleteById(id);
+		countCache.invalidate(comment.getCommentModule());
+		rateLimiter.forget(comment.getCommentModule());
 	}
 
 	/**
@@ -240,14 +253,15 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 				throw new LogicException("comment.ip.forbidden", "ip被禁止评论");
 			}
 
-			// 检查频率
+			// 检查频率，内存中没有记录时才会查询数据库
 			Limit limit = config.getLimit();
 			long start = now - limit.getUnit().toMillis(limit.getTime());
-			int count = commentDao.selectCountByIpAndDatePeriod(comment.getCommentModule(), new Timestamp(start),
-					new Timestamp(now), ip) + 1;
-			if (count > limit.getCount()) {
+			if (!rateLimiter.tryAcquire(ip, module, limit, now, () -> commentDao.selectCountByIpAndDatePeriod(module,
+					new Timestamp(start), new Timestamp(now), ip))) {
 				throw new LogicException("comment.overlimit", "评论太过频繁，请稍作休息");
 			}
+			// 评论插入失败时撤销记录
+			Transactions.afterRollback(() -> rateLimiter.release(ip, module, now));
 
 			for (CommentChecker checker : checkers) {
 				checker.checkComment(new Comment(comment), new CommentConfig(config));
@@ -277,8 +291,13 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 			throw new LogicException("comment.path.toolong", "该评论不能再被回复了");
 		}
 
-		Comment last = commentDao.selectLast(comment);
-		if (last != null && last.getContent().equals(comment.getContent())) {
+		String content = comment.getContent();
+		Integer parentId = parent == null ? null : parent.getId();
+		boolean duplicate = rateLimiter.isDuplicate(ip, module, parentId, content).orElseGet(() -> {
+			Comment last = commentDao.selectLast(comment);
+			return last != null && last.getContent().equals(content);
+		});
+		if (duplicate) {
 			throw new LogicException("comment.content.same", "已经回复过相同的评论了");
 		}
 
@@ -308,6 +327,7 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		comment.setParent(parent);
 
 		commentDao.insert(comment);
+		Transactions.afterCommit(() -> rateLimiter.record(ip, module, parentId, content));
 
 		handleComment(comment);
 		handleCommentsContent(List.of(comment));
@@ -410,6 +430,8 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 	@Transactional(propagation = Propagation.REQUIRED, rollbackFor = Throwable.class)
 	public void deleteComment(CommentModule module) {
 		commentDao.deleteByModule(module);
+		countCache.invalidate(module);
+		rateLimiter.forget(module);
 	}
 
 	/**
@@ -532,7 +554,9 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 	public OptionalInt queryCommentNum(String module, Integer moduleId) {
 		CommentModuleHandler handler = handlerMap.get(module);
 		if (handler != null) {
-			return handler.queryCommentNum(moduleId);
+			int count = countCache.get(new CommentModule(module, moduleId),
+					key -> handler.queryCommentNum(key.getId()).orElse(0));
+			return count == 0 ? OptionalInt.empty() : OptionalInt.of(count);
 		}
 		return OptionalInt.empty();
 	}
@@ -542,7 +566,9 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 	public Map<Integer, Integer> queryCommentNums(String module, Collection<Integer> moduleIds) {
 		CommentModuleHandler handler = handlerMap.get(module);
 		if (handler != null) {
-			return handler.queryCommentNums(moduleIds);
+			Map<Integer, Integer> counts = countCache.getAll(module, moduleIds, handler::queryCommentNums);
+			counts.values().removeIf(count -> count == 0);
+			return counts;
 		}
 		return new HashMap<>();
 	}
@@ -552,7 +578,8 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 	public OptionalInt queryCommentNum(String module, Space space, boolean queryPrivate) {
 		CommentModuleHandler handler = handlerMap.get(module);
 		if (handler != null) {
-			return OptionalInt.of(handler.queryCommentNum(space, queryPrivate));
+			return OptionalInt.of(countCache.getSpaceCount(module, space, queryPrivate,
+					() -> handler.queryCommentNum(space, queryPrivate)));
 		}
 		return OptionalInt.empty();
 	}
@@ -571,7 +598,8 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		boolean queryPrivate = Environment.isLogin();
 		for (CommentModuleHandler handler : handlerMap.values()) {
 			commentStatistics.addModule(new CommentModuleStatistics(handler.getModuleName(), handler.getName(),
-					handler.queryCommentNum(space, queryPrivate)));
+					countCache.getSpaceCount(handler.getModuleName(), space, queryPrivate,
+							() -> handler.queryCommentNum(space, queryPrivate))));
 		}
 		return commentStatistics;
 	}
@@ -599,6 +627,8 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		CommentModuleHandler handler = handlerMap.get(module);
 		if (handler != null) {
 			handler.deleteComments(moduleId);
+			countCache.invalidate(new CommentModule(module, moduleId));
+			rateLimiter.forget(new CommentModule(module, moduleId));
 		}
 	}
 
@@ -653,6 +683,20 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		loadConfig();
 	}
 
+	@EventListener
+	void handleCommentEvent(CommentEvent evt) {
+		countCache.invalidate(evt.getComment().getCommentModule());
+	}
+
+	/**
+	 * 项目状态的变化会影响空间下的评论总数
+	 */
+	@EventListener({ ArticleUpdateEvent.class, ArticleDelEvent.class, ArticlePublishEvent.class,
+			NewsUpdateEvent.class, NewsDelEvent.class, SpaceUpdateEvent.class, SpaceDelEvent.class })
+	void handleModuleChangeEvent() {
+		countCache.invalidateSpaceCounts();
+	}
+
 	@EventListener
 	void start(ContextRefreshedEvent evt) throws Exception {
 
@@ -677,30 +721,49 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 
 	}
 
-	private List<Comment> buildTree(List<Comment> comments) {
-		CollectFilteredFilter filter = new CollectFilteredFilter(null);
+	/**
+	 * 根据parentPath构建评论树
+	 * <p>
+	 * 通过id索引查找父评论，时间复杂度为O(n)。如果父评论不在列表中(例如未通过审核)，那么该评论以及它的回复都会被忽略
+	 * </p>
+	 * 
+	 * @param comments
+	 * @param comparator
+	 *            根评论以及回复的排序方式
+	 * @return 根评论
+	 */
+	static List<Comment> buildTree(List<Comment> comments, Comparator<Comment> comparator) {
+		Map<Integer, Comment> index = new HashMap<>(comments.size() * 4 / 3 + 1);
+		for (Comment comment : comments) {
+			comment.setChildren(new ArrayList<>());
+			index.put(comment.getId(), comment);
+		}
 		List<Comment> roots = new ArrayList<>();
-		comments.stream().filter(filter).collect(Collectors.toList())
-				.forEach(comment -> roots.add(pickByParent(comment, filter.rests)));
+		for (Comment comment : comments) {
+			List<Integer> parents = comment.getParents();
+			if (parents.isEmpty()) {
+				roots.add(comment);
+				continue;
+			}
+			Comment parent = index.get(parents.get(parents.size() - 1));
+			if (parent != null) {
+				parent.getChildren().add(comment);
+			}
+		}
+		for (Comment comment : comments) {
+			if (comment.getChildren().size() > 1) {
+				comment.getChildren().sort(comparator);
+			}
+		}
+		roots.sort(comparator);
 		return roots;
 	}
 
-	private Comment pickByParent(Comment parent, List<Comment> comments) {
-		Objects.requireNonNull(parent);
-		CollectFilteredFilter filter = new CollectFilteredFilter(parent);
-		List<Comment> children = comments.stream().filter(filter).collect(Collectors.toList());
-		children.forEach(child -> pickByParent(child, filter.rests));
-		parent.setChildren(children);
-		return parent;
-	}
-
 	private List<Comment> handleTree(List<Comment> comments, boolean asc) {
 		if (comments.isEmpty()) {
 			return comments;
 		}
-		List<Comment> tree = buildTree(comments);
-		tree.sort(asc ? ascCommentComparator : descCommentComparator);
-		return tree;
+		return buildTree(comments, asc ? ascCommentComparator : descCommentComparator);
 	}
 
 	private void handleComment(Comment comment) {
@@ -761,24 +824,6 @@ public class CommentService implements InitializingBean, CommentServer, Applicat
 		config.setNickname(pros.getProperty(COMMENT_NICKNAME, "admin"));
 	}
 
-	private final class CollectFilteredFilter implements Predicate<Comment> {
-		private final Comment parent;
-		private final List<Comment> rests = new ArrayList<>();
-
-		CollectFilteredFilter(Comment parent) {
-			this.parent = parent;
-		}
-
-		@Override
-		public boolean test(Comment t) {
-			if (Objects.equals(parent, t.getParent())) {
-				return true;
-			}
-			rests.add(t);
-			return false;
-		}
-	}
-
 	@Override
 	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
 		this.applicationEventPublisher = applicationEventPublisher;
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * 基于路径段的前缀树，用于查找和路径最匹配的pattern
+ * <p>
+ * 只由普通路径段以及<code>{variable}</code>路径段组成的pattern会被放入前缀树中，查找时只需要沿着路径段向下遍历，
+ * 其余的pattern(包含*、?、**或者路径段中只有一部分为{variable})仍然通过{@link PathMatcher}逐一匹配
+ * </p>
+ * <p>
+ * 匹配优先级同{@link PathMatcher#getPatternComparator(String)}一致：同路径完全相同的pattern优先，其次是{variable}更少的，
+ * 然后是替换{variable}之后更长的
+ * </p>
+ * <p>
+ * <b>创建后不可修改，pattern变更时需要重新创建，因此查找时无需加锁</b>
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ *
+ */
+final class PatternRouter {
+
+	private static final String SPLITER = "/";
+
+	private final Node root = new Node();
+	private final List<String> fallbackPatterns = new ArrayList<>();
+	private final Map<String, String> templateNames;
+	private final PathMatcher pathMatcher;
+
+	/**
+	 * 
+	 * @param templateNames
+	 *            key:pattern，value:模板名
+	 * @param pathMatcher
+	 */
+	PatternRouter(Map<String, String> templateNames, PathMatcher pathMatcher) {
+		super();
+		this.templateNames = Collections.unmodifiableMap(new HashMap<>(templateNames));
+		this.pathMatcher = pathMatcher;
+		for (String pattern : this.templateNames.keySet()) {
+			if (!insert(pattern)) {
+				fallbackPatterns.add(pattern);
+			}
+		}
+	}
+
+	/**
+	 * 获取pattern对应的模板名
+	 * 
+	 * @param pattern
+	 * @return 如果不存在，返回null
+	 */
+	String getTemplateName(String pattern) {
+		return templateNames.get(pattern);
+	}
+
+	/**
+	 * 查找和路径最匹配的pattern
+	 * 
+	 * @param path
+	 *            清理之后的路径
+	 * @return
+	 */
+	Optional<String> getBestMatchingPattern(String path) {
+		if (templateNames.containsKey(path)) {
+			return Optional.of(path);
+		}
+		String best = null;
+		if (!path.startsWith(SPLITER) && !path.endsWith(SPLITER)) {
+			Match match = new Match();
+			search(root, StringUtils.tokenizeToStringArray(path, SPLITER, false, true), 0, match);
+			best = match.node == null ? null : match.node.pattern;
+		}
+		if (!fallbackPatterns.isEmpty()) {
+			for (String pattern : fallbackPatterns) {
+				if (pathMatcher.match(pattern, path)
+						&& (best == null || pathMatcher.getPatternComparator(path).compare(pattern, best) < 0)) {
+					best = pattern;
+				}
+			}
+		}
+		return Optional.ofNullable(best);
+	}
+
+	private void search(Node node, String[] segments, int index, Match match) {
+		if (index == segments.length) {
+			if (node.pattern != null && match.isBetter(node)) {
+				match.node = node;
+			}
+			return;
+		}
+		Node literal = node.literals.get(segments[index]);
+		if (literal != null) {
+			search(literal, segments, index + 1, match);
+		}
+		if (node.variable != null) {
+			search(node.variable, segments, index + 1, match);
+		}
+	}
+
+	/**
+	 * 将pattern放入前缀树
+	 * 
+	 * @param pattern
+	 * @return 如果pattern不能被放入前缀树，返回false
+	 */
+	private boolean insert(String pattern) {
+		if (pattern.startsWith(SPLITER) || pattern.endsWith(SPLITER) || pattern.indexOf('*') != -1
+				|| pattern.indexOf('?') != -1) {
+			return false;
+		}
+		String[] segments = StringUtils.tokenizeToStringArray(pattern, SPLITER, false, true);
+		int variables = 0;
+		int length = pattern.length();
+		for (String segment : segments) {
+			if (isVariable(segment)) {
+				variables++;
+				length -= segment.length() - 1;
+			} else if (segment.indexOf('{') != -1 || segment.indexOf('}') != -1) {
+				return false;
+			}
+		}
+		Node node = root;
+		for (String segment : segments) {
+			if (isVariable(segment)) {
+				if (node.variable == null) {
+					node.variable = new Node();
+				}
+				node = node.variable;
+			} else {
+				node = node.literals.computeIfAbsent(segment, k -> new Node());
+			}
+		}
+		// 相同结构的pattern，例如space/{alias}和space/{id}，后者通过PathMatcher匹配
+		if (node.pattern != null) {
+			return false;
+		}
+		node.pattern = pattern;
+		node.variables = variables;
+		node.length = length;
+		return true;
+	}
+
+	private boolean isVariable(String segment) {
+		// {variable:regex}需要通过PathMatcher匹配
+		return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+				&& segment.indexOf('{', 1) == -1 && segment.indexOf('}') == segment.length() - 1
+				&& segment.indexOf(':') == -1;
+	}
+
+	private static final class Node {
+		private final Map<String, Node> literals = new HashMap<>();
+		private Node variable;
+
+		private String pattern;
+		private int variables;
+		private int length;
+	}
+
+	private static final class Match {
+		private Node node;
+
+		boolean isBetter(Node candidate) {
+			if (node == null) {
+				return true;
+			}
+			if (candidate.variables != node.variables) {
+				return candidate.variables < node.variables;
+			}
+			return candidate.length > node.length;
+		}
+	}
+}
@@ -74,8 +74,6 @@ public class TemplateMapping {
 
 	private final EmptyPatternsMatchCondition EMPTY_PATTERNS_MATCH_CONDITION = new EmptyPatternsMatchCondition();
 
-	private final PatternsRequestConditionHolder highestPriorityHolder = new PatternsRequestConditionHolder();
-
 	/**
 	 * 存放PathVariable类型的pattern
 	 */
@@ -83,6 +81,20 @@ public class TemplateMapping {
 
 	private final PathMatcher pathMatcher = new AntPathMatcher();
 
+	/**
+	 * 最高优先级路径的前缀树，每次修改时重新创建，查找时无需加锁
+	 * 
+	 * @since 6.7
+	 */
+	private volatile PatternRouter highestPriorityRouter = new PatternRouter(Map.of(), pathMatcher);
+
+	/**
+	 * PathVariable路径的前缀树，每次修改时重新创建，查找时无需加锁
+	 * 
+	 * @since 6.7
+	 */
+	private volatile PatternRouter pathVariableRouter = new PatternRouter(Map.of(), pathMatcher);
+
 	@Autowired
 	private RequestMappingHandlerMapping requestMappingHandlerMapping;
 
@@ -102,28 +114,13 @@ public class TemplateMapping {
 	public Optional<TemplateMatch> getBestHighestPriorityTemplateMatch(String uncleanPath) {
 		Objects.requireNonNull(uncleanPath);
 		String path = FileUtils.cleanPath(uncleanPath);
-		lock.readLock().lock();
-		try {
-			return doGetBestHighestPriorityTemplateMatch(path);
-		} finally {
-			lock.readLock().unlock();
-		}
+		return doGetBestHighestPriorityTemplateMatch(path);
 	}
 
 	private Optional<TemplateMatch> doGetBestHighestPriorityTemplateMatch(String path) {
-		String templateName = highestPriorityPatternMap.get(path);
-		if (templateName != null) {
-			return Optional.of(new TemplateMatch(path, templateName));
-		}
-
-		List<String> bestMatchPatterns = highestPriorityHolder.getCondition().getMatchingPatterns(path);
-		if (bestMatchPatterns.isEmpty()) {
-			return Optional.empty();
-		}
-
-		String bestPattern = bestMatchPatterns.get(0);
-
-		return Optional.of(new TemplateMatch(bestPattern, highestPriorityPatternMap.get(bestPattern)));
+		PatternRouter router = highestPriorityRouter;
+		return router.getBestMatchingPattern(path)
+				.map(bestPattern -> new TemplateMatch(bestPattern, router.getTemplateName(bestPattern)));
 	}
 
 	/**
@@ -135,22 +132,13 @@ public class TemplateMapping {
 	public Optional<TemplateMatch> getBestPathVariableTemplateMatch(String uncleanPath) {
 		Objects.requireNonNull(uncleanPath);
 		String path = FileUtils.cleanPath(uncleanPath);
-		lock.readLock().lock();
-		try {
-			return doGetBestPathVariableTemplateMatch(path);
-		} finally {
-			lock.readLock().unlock();
-		}
+		return doGetBestPathVariableTemplateMatch(path);
 	}
 
 	private Optional<TemplateMatch> doGetBestPathVariableTemplateMatch(String path) {
-		List<String> bestMatchPatterns = holder.getCondition().getMatchingPatterns(path);
-		if (bestMatchPatterns.isEmpty()) {
-			return Optional.empty();
-		}
-
-		String bestPattern = bestMatchPatterns.get(0);
-		return Optional.of(new TemplateMatch(bestPattern, patternMap.get(bestPattern)));
+		PatternRouter router = pathVariableRouter;
+		return router.getBestMatchingPattern(path)
+				.map(bestPattern -> new TemplateMatch(bestPattern, router.getTemplateName(bestPattern)));
 	}
 
 	/**
@@ -184,7 +172,7 @@ public class TemplateMapping {
 				}
 
 				highestPriorityPatternMap.put(pattern, templateName);
-				highestPriorityHolder.setCondition(new PatternsMatchCondition(highestPriorityPatternMap.keySet()));
+				updateHighestPriorityPatterns();
 			} else {
 
 				String patternMappingTemplateName = patternMap.get(pattern);
@@ -200,7 +188,7 @@ public class TemplateMapping {
 					}
 
 					patternMap.put(pattern, templateName);
-					holder.setCondition(new PatternsMatchCondition(patternMap.keySet()));
+					updatePathVariablePatterns();
 				}
 			}
 
@@ -232,7 +220,7 @@ public class TemplateMapping {
 
 			if (isHighestPriority(pattern, templateName)) {
 				highestPriorityPatternMap.put(pattern, templateName);
-				highestPriorityHolder.setCondition(new PatternsMatchCondition(highestPriorityPatternMap.keySet()));
+				updateHighestPriorityPatterns();
 			} else {
 				if (patternMap.get(pattern) == null) {
 					List<String> matchers = holder.getCondition().getMatchingPatterns(pattern);
@@ -245,7 +233,7 @@ public class TemplateMapping {
 				}
 
 				patternMap.put(pattern, templateName);
-				holder.setCondition(new PatternsMatchCondition(patternMap.keySet()));
+				updatePathVariablePatterns();
 			}
 
 			if (SystemTemplate.isSystemTemplate(templateName)) {
@@ -276,11 +264,11 @@ public class TemplateMapping {
 				if (sysTemplateName != null) {
 					highestPriorityPatternMap.put(pattern, sysTemplateName);
 				}
-				highestPriorityHolder.setCondition(new PatternsMatchCondition(highestPriorityPatternMap.keySet()));
+				updateHighestPriorityPatterns();
 				return true;
 			}
 			if (patternMap.remove(pattern) != null) {
-				holder.setCondition(new PatternsMatchCondition(patternMap.keySet()));
+				updatePathVariablePatterns();
 				return true;
 			}
 			return false;
@@ -583,6 +571,15 @@ public class TemplateMapping {
 		}
 	}
 
+	private void updateHighestPriorityPatterns() {
+		highestPriorityRouter = new PatternRouter(highestPriorityPatternMap, pathMatcher);
+	}
+
+	private void updatePathVariablePatterns() {
+		holder.setCondition(new PatternsMatchCondition(Set.copyOf(patternMap.keySet())));
+		pathVariableRouter = new PatternRouter(patternMap, pathMatcher);
+	}
+
 	private boolean isHighestPriority(String pattern, String templateName) {
 		return SystemTemplate.isSystemTemplate(templateName)
 				|| isHighestPriorityPattern(pattern, new PatternsMatchCondition(sysMap.keySet()));
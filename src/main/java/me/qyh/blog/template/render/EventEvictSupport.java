@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import me.qyh.blog.core.event.ArticleCreateEvent;
+import me.qyh.blog.core.event.ArticleDelEvent;
+import me.qyh.blog.core.event.ArticlePublishEvent;
+import me.qyh.blog.core.event.ArticleUpdateEvent;
+import me.qyh.blog.core.event.LockCreateEvent;
+import me.qyh.blog.core.event.LockDelEvent;
+import me.qyh.blog.core.event.LockUpdateEvent;
+import me.qyh.blog.core.event.NewsCreateEvent;
+import me.qyh.blog.core.event.NewsDelEvent;
+import me.qyh.blog.core.event.NewsUpdateEvent;
+import me.qyh.blog.core.event.SpaceCreateEvent;
+import me.qyh.blog.core.event.SpaceDelEvent;
+import me.qyh.blog.core.event.SpaceUpdateEvent;
+import me.qyh.blog.core.service.impl.Transactions;
+
+/**
+ * 根据事件清除缓存内容的基类
+ * <p>
+ * 只监听Root ApplicationContext中的事件，当监听到{@link #evictOn(Class)}中添加的事件时，调用{@link #evictAll()}
+ * </p>
+ * <p>
+ * 每次清除时递增版本，加载开始后如果版本发生了变化，那么加载结果不会被放入缓存，见{@link #putIfCurrent(long, Runnable, Runnable)}；
+ * 如果清除时处于事务中，那么事务提交后会再次清除，防止并发的加载读取到未提交的数据
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public abstract class EventEvictSupport implements ApplicationListener<ContextRefreshedEvent> {
+
+	/**
+	 * 文章、动态、空间以及锁的事件
+	 */
+	protected static final List<Class<? extends ApplicationEvent>> CONTENT_EVENT_TYPES = List.of(
+			ArticleCreateEvent.class, ArticleDelEvent.class, ArticlePublishEvent.class, ArticleUpdateEvent.class,
+			NewsCreateEvent.class, NewsDelEvent.class, NewsUpdateEvent.class, SpaceCreateEvent.class,
+			SpaceDelEvent.class, SpaceUpdateEvent.class, LockCreateEvent.class, LockDelEvent.class,
+			LockUpdateEvent.class);
+
+	private final Set<Class<? extends ApplicationEvent>> evictEventTypes;
+
+	private final AtomicLong version = new AtomicLong();
+
+	protected EventEvictSupport(Collection<Class<? extends ApplicationEvent>> evictEventTypes) {
+		super();
+		this.evictEventTypes = new CopyOnWriteArraySet<>(evictEventTypes);
+	}
+
+	/**
+	 * 添加清除所有内容的事件
+	 * 
+	 * @param eventType
+	 */
+	public void evictOn(Class<? extends ApplicationEvent> eventType) {
+		evictEventTypes.add(Objects.requireNonNull(eventType));
+	}
+
+	/**
+	 * 清除所有内容
+	 */
+	public void evictAll() {
+		evict(this::doEvictAll);
+	}
+
+	/**
+	 * 递增版本之后执行清除，如果当前处于事务中，那么事务提交后会再次执行
+	 * 
+	 * @param action
+	 */
+	protected final void evict(Runnable action) {
+		doEvict(action);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			Transactions.afterCommit(() -> doEvict(action));
+		}
+	}
+
+	private void doEvict(Runnable action) {
+		version.incrementAndGet();
+		action.run();
+	}
+
+	/**
+	 * 如果版本没有发生变化，放入缓存
+	 * 
+	 * @param loadVersion
+	 *            加载开始时的版本，通过{@link #getVersion()}获取
+	 * @param put
+	 *            放入缓存
+	 * @param undo
+	 *            放入缓存时恰好被清除，撤销放入
+	 */
+	protected final void putIfCurrent(long loadVersion, Runnable put, Runnable undo) {
+		if (version.get() != loadVersion) {
+			return;
+		}
+		put.run();
+		if (version.get() != loadVersion) {
+			undo.run();
+		}
+	}
+
+	/**
+	 * 是否是需要清除所有内容的事件
+	 * 
+	 * @param event
+	 * @return
+	 */
+	protected final boolean isEvictOn(ApplicationEvent event) {
+		return evictEventTypes.stream().anyMatch(type -> type.isInstance(event));
+	}
+
+	/**
+	 * 处理Root ApplicationContext中的事件
+	 * 
+	 * @param event
+	 */
+	protected void onEvent(ApplicationEvent event) {
+		if (isEvictOn(event)) {
+			evictAll();
+		}
+	}
+
+	/**
+	 * 清除所有内容，此时版本已经递增
+	 */
+	protected abstract void doEvictAll();
+
+	public long getVersion() {
+		return version.get();
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (event.getApplicationContext().getParent() == null) {
+			return;
+		}
+		/**
+		 * Child ApplicationContext中发布的事件同样会传递到Root ApplicationContext中，因此只需要监听Root
+		 * ApplicationContext
+		 */
+		AbstractApplicationContext parent = (AbstractApplicationContext) event.getApplicationContext().getParent();
+		parent.addApplicationListener(new EvictListener());
+	}
+
+	private final class EvictListener implements ApplicationListener<ApplicationEvent> {
+
+		@Override
+		public void onApplicationEvent(ApplicationEvent event) {
+			onEvent(event);
+		}
+	}
+}
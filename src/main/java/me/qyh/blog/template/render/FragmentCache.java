@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import me.qyh.blog.core.context.Environment;
+import me.qyh.blog.core.exception.SystemException;
+import me.qyh.blog.template.event.TemplateEvitEvent;
+
+/**
+ * fragment标签渲染结果的缓存
+ * <p>
+ * 通过<code>&lt;fragment name="nav" cache="10m"/&gt;</code>开启，
+ * 缓存的key为fragment的模板名、模板模式、当前空间、是否登录以及vary属性中指定的变量的值，例如
+ * <code>&lt;fragment name="nav" cache="10m" vary="page"/&gt;</code>
+ * </p>
+ * <p>
+ * <b>命中缓存时fragment不会被处理，因此fragment中的data标签不会再向页面中添加数据，
+ * 包含lock、private标签或者csrf token等和访问者相关内容的fragment不应该被缓存</b>
+ * </p>
+ * <p>
+ * 当监听到文章、动态、空间、锁以及模板缓存清除事件时，清空所有的缓存，插件可以通过{@link #evictOn(Class)}添加其他的事件
+ * </p>
+ * 
+ * <pre>
+ * &lt;bean class="me.qyh.blog.template.render.FragmentCache"&gt;
+ *	&lt;property name="maxSize" value="200" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class FragmentCache extends EventEvictSupport implements InitializingBean {
+
+	private long maxSize = 200;
+
+	/**
+	 * 超过该长度的渲染结果不会被缓存
+	 */
+	private int maxLength = 256 * 1024;
+
+	private Cache<Key, Entry> cache;
+
+	public FragmentCache() {
+		super(evictEventTypes());
+	}
+
+	private static List<Class<? extends ApplicationEvent>> evictEventTypes() {
+		List<Class<? extends ApplicationEvent>> eventTypes = new ArrayList<>(CONTENT_EVENT_TYPES);
+		eventTypes.add(TemplateEvitEvent.class);
+		return eventTypes;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (maxSize < 1) {
+			throw new SystemException("maxSize不能小于1");
+		}
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfter(new EntryExpiry()).recordStats()
+				.build();
+	}
+
+	/**
+	 * 获取缓存的渲染结果
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public Optional<String> get(Key key) {
+		return Optional.ofNullable(cache.getIfPresent(key)).map(entry -> entry.content);
+	}
+
+	/**
+	 * 放入缓存
+	 * 
+	 * @param key
+	 * @param content
+	 *            渲染结果
+	 * @param seconds
+	 *            缓存时间
+	 * @param renderVersion
+	 *            渲染开始时的版本，通过{@link #getVersion()}获取
+	 */
+	public void put(Key key, String content, long seconds, long renderVersion) {
+		if (seconds < 1 || content.length() > maxLength) {
+			return;
+		}
+		Entry entry = new Entry(content, TimeUnit.SECONDS.toNanos(seconds));
+		putIfCurrent(renderVersion, () -> cache.put(key, entry), () -> cache.invalidate(key));
+	}
+
+	@Override
+	protected void doEvictAll() {
+		cache.invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setMaxLength(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	private static final class EntryExpiry implements Expiry<Key, Entry> {
+
+		@Override
+		public long expireAfterCreate(Key key, Entry value, long currentTime) {
+			return value.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(Key key, Entry value, long currentTime, long currentDuration) {
+			return value.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterRead(Key key, Entry value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+	private static final class Entry {
+		private final String content;
+		private final long ttlNanos;
+
+		Entry(String content, long ttlNanos) {
+			super();
+			this.content = content;
+			this.ttlNanos = ttlNanos;
+		}
+	}
+
+	/**
+	 * 缓存的key
+	 * 
+	 * @author wwwqyhme
+	 * 
+	 */
+	public static final class Key {
+		private final String templateName;
+		private final String templateMode;
+		private final String space;
+		private final boolean login;
+		private final List<String> vary;
+
+		/**
+		 * 
+		 * @param templateName
+		 *            fragment的模板名，通过{@link Fragments#getCurrentTemplateName(String)}获取
+		 * @param templateMode
+		 * @param vary
+		 *            vary属性中指定的变量的值
+		 */
+		public Key(String templateName, String templateMode, List<String> vary) {
+			super();
+			this.templateName = templateName;
+			this.templateMode = templateMode;
+			this.space = Environment.getSpaceAlias();
+			this.login = Environment.isLogin();
+			this.vary = List.copyOf(vary);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(templateName, templateMode, space, login, vary);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return login == other.login && Objects.equals(templateName, other.templateName)
+					&& Objects.equals(templateMode, other.templateMode) && Objects.equals(space, other.space)
+					&& Objects.equals(vary, other.vary);
+		}
+	}
+}
@@ -15,8 +15,13 @@
  */
 package me.qyh.blog.template.render;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Future;
 
 import org.springframework.transaction.TransactionStatus;
 
@@ -32,6 +37,13 @@ public class ParseContext {
 	private ParseConfig config;
 	private ParsedTemplate root;
 
+	/**
+	 * 预先查询的数据，key为模板名以及data标签的属性
+	 * 
+	 * @since 6.7
+	 */
+	private final Map<Map.Entry<String, Map<String, String>>, Deque<Future<Object>>> prefetched = new HashMap<>();
+
 	ParseContext() {
 		super();
 	}
@@ -83,4 +95,45 @@ public class ParseContext {
 		}
 	}
 
+	/**
+	 * 记录预先查询的数据
+	 * 
+	 * @since 6.7
+	 * @param templateName
+	 *            data标签所在的模板
+	 * @param attributes
+	 *            data标签的属性
+	 * @param future
+	 */
+	public void addPrefetched(String templateName, Map<String, String> attributes, Future<Object> future) {
+		prefetched.computeIfAbsent(Map.entry(templateName, new HashMap<>(attributes)), k -> new ArrayDeque<>())
+				.add(future);
+	}
+
+	/**
+	 * 取出预先查询的数据，同一个标签出现多次时，依次取出
+	 * 
+	 * @since 6.7
+	 * @param templateName
+	 * @param attributes
+	 * @return
+	 */
+	public Optional<Future<Object>> pollPrefetched(String templateName, Map<String, String> attributes) {
+		if (prefetched.isEmpty()) {
+			return Optional.empty();
+		}
+		Deque<Future<Object>> futures = prefetched.get(Map.entry(templateName, attributes));
+		return futures == null ? Optional.empty() : Optional.ofNullable(futures.poll());
+	}
+
+	/**
+	 * 取消没有被使用的预先查询
+	 * 
+	 * @since 6.7
+	 */
+	void cancelPrefetched() {
+		prefetched.values().forEach(futures -> futures.forEach(future -> future.cancel(false)));
+		prefetched.clear();
+	}
+
 }
@@ -28,6 +28,7 @@ public class ParseContextHolder {
 	}
 
 	public static void remove() {
+		CONTEXT_LOCAL.get().cancelPrefetched();
 		CONTEXT_LOCAL.remove();
 	}
 
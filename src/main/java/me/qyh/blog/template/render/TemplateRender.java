@@ -15,6 +15,7 @@
  */
 package me.qyh.blog.template.render;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -83,7 +84,7 @@ public final class TemplateRender
 			ReadOnlyResponse response, ParseConfig config) throws Exception {
 		ParseContextHolder.getContext().setConfig(config);
 		try {
-			String content = doRender(templateName, model, request, response);
+			String content = templateRenderer.execute(templateName, buildModel(model, request), request, response);
 			String contentType = config.getContentType();
 			if (!renderHandlers.isEmpty()) {
 				for (TemplateRenderHandler handler : renderHandlers) {
@@ -94,23 +95,45 @@ public final class TemplateRender
 			}
 			return content;
 		} catch (Throwable e) {
-			markRollBack();
-
-			// 从异常栈中寻找 逻辑异常
-			Optional<Throwable> finded = ExceptionUtils.getFromChain(e, RuntimeLogicException.class,
-					LockException.class, AuthencationException.class, RedirectException.class, MissLockException.class);
-			if (finded.isPresent()) {
-				throw (Exception) finded.get();
-			}
-
-			// 如果没有逻辑异常，转化模板异常
-			Optional<TemplateRenderException> optional = templateExceptionTranslater.translate(templateName, e);
-			if (optional.isPresent()) {
-				throw optional.get();
+			throw translateException(templateName, e);
+		} finally {
+			try {
+				commit();
+			} finally {
+				ParseContextHolder.remove();
 			}
+		}
+	}
 
-			throw new SystemException(e.getMessage(), e);
-
+	/**
+	 * 将模板直接渲染至writer中
+	 * <p>
+	 * 如果存在匹配的{@link TemplateRenderHandler}，由于它需要完整的内容，此时会先渲染成字符串，然后再写入writer
+	 * </p>
+	 * <p>
+	 * <b>渲染过程中发生异常时，writer中可能已经写入了部分内容，调用者需要自行处理</b>
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param templateName
+	 * @param model
+	 * @param request
+	 * @param response
+	 * @param config
+	 * @param writer
+	 * @throws Exception
+	 */
+	public void doRender(String templateName, Map<String, ?> model, HttpServletRequest request,
+			ReadOnlyResponse response, ParseConfig config, Writer writer) throws Exception {
+		if (requireFullContent(templateName, request, config.getContentType())) {
+			writer.write(doRender(templateName, model, request, response, config));
+			return;
+		}
+		ParseContextHolder.getContext().setConfig(config);
+		try {
+			templateRenderer.execute(templateName, buildModel(model, request), request, response, writer);
+		} catch (Throwable e) {
+			throw translateException(templateName, e);
 		} finally {
 			try {
 				commit();
@@ -120,6 +143,34 @@ public final class TemplateRender
 		}
 	}
 
+	private boolean requireFullContent(String templateName, HttpServletRequest request, String contentType) {
+		for (TemplateRenderHandler handler : renderHandlers) {
+			if (handler.match(templateName, request, contentType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Exception translateException(String templateName, Throwable e) {
+		markRollBack();
+
+		// 从异常栈中寻找 逻辑异常
+		Optional<Throwable> finded = ExceptionUtils.getFromChain(e, RuntimeLogicException.class, LockException.class,
+				AuthencationException.class, RedirectException.class, MissLockException.class);
+		if (finded.isPresent()) {
+			return (Exception) finded.get();
+		}
+
+		// 如果没有逻辑异常，转化模板异常
+		Optional<TemplateRenderException> optional = templateExceptionTranslater.translate(templateName, e);
+		if (optional.isPresent()) {
+			return optional.get();
+		}
+
+		return new SystemException(e.getMessage(), e);
+	}
+
 	public String processPjaxTemplateName(String templateName, HttpServletRequest request) throws LogicException {
 		return templateRenderer.processPjaxTemplateName(templateName, request);
 	}
@@ -138,8 +189,8 @@ public final class TemplateRender
 		}
 	}
 
-	private String doRender(String viewTemplateName, final Map<String, ?> model, final HttpServletRequest request,
-			final ReadOnlyResponse response) throws Exception {
+	private Map<String, Object> buildModel(final Map<String, ?> model, final HttpServletRequest request)
+			throws Exception {
 		Map<String, Object> _model = model == null ? new HashMap<>() : new HashMap<>(model);
 		if (!CollectionUtils.isEmpty(pros)) {
 			_model.putAll(pros);
@@ -161,7 +212,7 @@ public final class TemplateRender
 			}
 		}
 
-		return templateRenderer.execute(viewTemplateName, _model, request, response);
+		return _model;
 	}
 
 	@Override
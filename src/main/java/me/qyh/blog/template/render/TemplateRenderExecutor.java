@@ -15,6 +15,7 @@
  */
 package me.qyh.blog.template.render;
 
+import java.io.Writer;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -40,6 +41,25 @@ public interface TemplateRenderExecutor {
 	String execute(String viewTemplateName, Map<String, Object> model, HttpServletRequest request,
 			ReadOnlyResponse readOnlyResponse) throws Exception;
 
+	/**
+	 * 将模板内容渲染至writer中
+	 * 
+	 * @since 6.7
+	 * @param viewTemplateName
+	 * @param model
+	 *            额外参数
+	 * @param request
+	 *            当前请求
+	 * @param readOnlyResponse
+	 *            <b>READ ONLY</b> response
+	 * @param writer
+	 * @throws Exception
+	 */
+	default void execute(String viewTemplateName, Map<String, Object> model, HttpServletRequest request,
+			ReadOnlyResponse readOnlyResponse, Writer writer) throws Exception {
+		writer.write(execute(viewTemplateName, model, request, readOnlyResponse));
+	}
+
 	/**
 	 * 判断是否支持pjax，并且从原始模板名获取新的模板名称
 	 * 
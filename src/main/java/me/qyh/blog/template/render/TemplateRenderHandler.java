@@ -17,6 +17,15 @@ package me.qyh.blog.template.render;
 
 import javax.servlet.http.HttpServletRequest;
 
+/**
+ * 模板渲染完成后对内容进行处理
+ * <p>
+ * 由于处理时需要完整的内容，如果存在匹配的处理器，模板无法流式输出
+ * </p>
+ * 
+ * @see TemplateRender#doRender(String, java.util.Map, HttpServletRequest, ReadOnlyResponse, ParseConfig,
+ *      java.io.Writer)
+ */
 public interface TemplateRenderHandler {
 	boolean match(String templateName, HttpServletRequest request, String contentType);
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render.data;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import me.qyh.blog.core.context.Environment;
+import me.qyh.blog.core.entity.Article.ArticleFrom;
+import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.service.ArticleService;
+import me.qyh.blog.core.vo.ArticleFacets;
+import me.qyh.blog.core.vo.ArticleQueryParam;
+
+/**
+ * 文章分面统计，包括标签、空间、发布年月以及来源
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class ArticleFacetsDataTagProcessor extends DataTagProcessor<ArticleFacets> {
+
+	private static final int MAX_QUERY_LENGTH = 40;
+
+	@Autowired
+	private ArticleService articleService;
+
+	public ArticleFacetsDataTagProcessor(String name, String dataName) {
+		super(name, dataName);
+	}
+
+	@Override
+	protected ArticleFacets query(Attributes attributes) throws LogicException {
+		ArticleQueryParam param = new ArticleQueryParam();
+		attributes.getString("query").map(query -> query.length() > MAX_QUERY_LENGTH
+				? query.substring(0, MAX_QUERY_LENGTH) : query).ifPresent(param::setQuery);
+		attributes.getString("tag").ifPresent(param::setTag);
+		attributes.getEnum("from", ArticleFrom.class).ifPresent(param::setFrom);
+		if (Environment.isLogin()) {
+			param.setQueryPrivate(attributes.getBoolean("queryPrivate").orElse(true));
+		}
+		param.setSpace(getCurrentSpace());
+		return articleService.queryArticleFacets(param);
+	}
+
+	@Override
+	public List<String> getAttributes() {
+		return List.of("query", "tag", "from", "queryPrivate");
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.service.ArticleService;
+import me.qyh.blog.core.vo.ArticleSuggestion;
+
+/**
+ * 搜索建议，用于输入时的自动补全，可以通过ajax调用
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class ArticleSuggestDataTagProcessor extends DataTagProcessor<List<ArticleSuggestion>> {
+
+	private static final int DEFAULT_LIMIT = 10;
+	private static final int MAX_LIMIT = 20;
+	private static final int MAX_PREFIX_LENGTH = 40;
+
+	@Autowired
+	private ArticleService articleService;
+
+	public ArticleSuggestDataTagProcessor(String name, String dataName) {
+		super(name, dataName);
+	}
+
+	@Override
+	protected List<ArticleSuggestion> query(Attributes attributes) throws LogicException {
+		String prefix = attributes.getString("prefix").orElse(null);
+		if (prefix == null || prefix.length() > MAX_PREFIX_LENGTH) {
+			return new ArrayList<>();
+		}
+		int limit = attributes.getInteger("limit").orElse(DEFAULT_LIMIT);
+		if (limit < 1 || limit > MAX_LIMIT) {
+			limit = DEFAULT_LIMIT;
+		}
+		return articleService.suggest(prefix, limit);
+	}
+
+	@Override
+	public List<String> getAttributes() {
+		return List.of("prefix", "limit");
+	}
+}
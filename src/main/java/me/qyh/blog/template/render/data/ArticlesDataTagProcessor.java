@@ -96,6 +96,7 @@ public class ArticlesDataTagProcessor extends DataTagProcessor<PageResult<Articl
 		param.setSpaces(attributes.getSet("spaces", ","));
 
 		attributes.getBoolean("ignorePaging").ifPresent(param::setIgnorePaging);
+		attributes.getString("cursor").ifPresent(param::setCursor);
 
 		if (Environment.isLogin()) {
 			param.setQueryPrivate(attributes.getBoolean("queryPrivate").orElse(true));
@@ -116,6 +117,6 @@ public class ArticlesDataTagProcessor extends DataTagProcessor<PageResult<Articl
 	@Override
 	public List<String> getAttributes() {
 		return List.of("begin", "end", "query", "from", "tag", "sort", "currentPage", "pageSize", "highlight",
-				"ignoreLevel", "queryLock", "spaces", "ignorePaging", "queryPrivate");
+				"ignoreLevel", "queryLock", "spaces", "ignorePaging", "queryPrivate", "cursor");
 	}
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render.data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.util.CollectionUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import me.qyh.blog.core.context.Environment;
+import me.qyh.blog.core.context.LockKeyContext;
+import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.exception.SystemException;
+import me.qyh.blog.core.util.Times;
+import me.qyh.blog.template.render.EventEvictSupport;
+import me.qyh.blog.template.vo.DataBind;
+
+/**
+ * data标签查询结果的缓存
+ * <p>
+ * 缓存时间可以通过data标签的cache属性指定，例如<code>cache="60s"</code>、<code>cache="5m"</code>，
+ * 如果没有指定，使用{@link DataTagProcessor#getCacheSeconds()}，缓存时间小于1时不缓存
+ * </p>
+ * <p>
+ * 缓存的key为数据名、规范化后的属性、当前空间、是否登录以及是否预览，如果属性中包含非简单类型的值(例如通过ref-引用的对象)，那么不会被缓存；
+ * 如果当前请求中存在解锁用的钥匙，查询结果可能包含加锁的内容，同样不会被缓存
+ * </p>
+ * <p>
+ * 当监听到文章、动态、空间以及锁的事件时，清除缓存，可以通过{@link DataTagProcessor#setCacheEvictOn(List)}指定某个数据需要监听的事件，
+ * 或者通过{@link #evictOn(Class)}添加所有数据都需要监听的事件
+ * </p>
+ * 
+ * <pre>
+ * &lt;bean class="me.qyh.blog.template.render.data.DataTagCache"&gt;
+ *	&lt;property name="maxSize" value="1000" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class DataTagCache extends EventEvictSupport implements InitializingBean {
+
+	/**
+	 * data标签中用来指定缓存时间的属性
+	 */
+	public static final String CACHE_ATTR = "cache";
+
+	private static final Set<String> IGNORE_ATTRS = Set.of(CACHE_ATTR, "name", "alias", "lazy");
+
+	private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+	private long maxSize = 1000;
+
+	private Cache<Key, Entry> cache;
+
+	public DataTagCache() {
+		super(CONTENT_EVENT_TYPES);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (maxSize < 1) {
+			throw new SystemException("maxSize不能小于1");
+		}
+		this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfter(new EntryExpiry()).build();
+	}
+
+	/**
+	 * 包装查询，使其能够使用缓存
+	 * 
+	 * @param processor
+	 * @param attributes
+	 *            data标签的属性
+	 * @param bind
+	 *            {@link DataTagProcessor#getData(Map)}
+	 * @return 如果不需要缓存，返回bind本身
+	 */
+	public DataBind wrap(DataTagProcessor<?> processor, Map<String, Object> attributes, DataBind bind) {
+		// 缓存的内容会被没有钥匙的请求读取到，因此不能缓存
+		if (!CollectionUtils.isEmpty(LockKeyContext.getKeys())) {
+			return bind;
+		}
+		long ttl = getCacheSeconds(processor, attributes);
+		if (ttl < 1) {
+			return bind;
+		}
+		Map<String, String> normalized = normalize(attributes);
+		if (normalized == null) {
+			return bind;
+		}
+		Key key = new Key(processor, normalized);
+		return new DataBind(bind.getDataName()) {
+
+			@Override
+			public Object getData() throws LogicException {
+				Statistics stats = statistics.computeIfAbsent(processor.getName(), k -> new Statistics());
+				Entry entry = cache.getIfPresent(key);
+				if (entry != null) {
+					stats.hits.increment();
+					return entry.value;
+				}
+				stats.misses.increment();
+				long current = getVersion();
+				long start = System.nanoTime();
+				Object value = bind.getData();
+				stats.loadTime.add(System.nanoTime() - start);
+				Entry loaded = new Entry(value, TimeUnit.SECONDS.toNanos(ttl));
+				putIfCurrent(current, () -> cache.put(key, loaded), () -> cache.invalidate(key));
+				return value;
+			}
+
+			@Override
+			public boolean isPrefetchable() {
+				return bind.isPrefetchable();
+			}
+		};
+	}
+
+	private long getCacheSeconds(DataTagProcessor<?> processor, Map<String, Object> attributes) {
+		Object cacheAttr = attributes.get(CACHE_ATTR);
+		if (cacheAttr == null) {
+			return processor.getCacheSeconds();
+		}
+		return Times.parseSeconds(cacheAttr.toString());
+	}
+
+	private Map<String, String> normalize(Map<String, Object> attributes) {
+		Map<String, String> normalized = new TreeMap<>();
+		for (Map.Entry<String, Object> it : attributes.entrySet()) {
+			if (IGNORE_ATTRS.contains(it.getKey())) {
+				continue;
+			}
+			Object value = it.getValue();
+			if (value == null) {
+				normalized.put(it.getKey(), "");
+			} else if (value instanceof String || value instanceof Number || value instanceof Boolean
+					|| value instanceof Enum) {
+				normalized.put(it.getKey(), value.toString().trim());
+			} else {
+				return null;
+			}
+		}
+		return normalized;
+	}
+
+	@Override
+	protected void doEvictAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * 除了清除所有缓存的事件之外，清除监听了该事件的数据的缓存
+	 */
+	@Override
+	protected void onEvent(ApplicationEvent event) {
+		if (isEvictOn(event)) {
+			evictAll();
+			return;
+		}
+		if (cache.asMap().keySet().stream().anyMatch(key -> key.processor.isCacheEvictOn(event))) {
+			evict(() -> cache.asMap().keySet().removeIf(key -> key.processor.isCacheEvictOn(event)));
+		}
+	}
+
+	/**
+	 * 每个数据的缓存统计，key为数据名
+	 * 
+	 * @return
+	 */
+	public Map<String, Statistics> getStatistics() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(statistics));
+	}
+
+	public long estimatedSize() {
+		return cache.estimatedSize();
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 缓存统计
+	 * 
+	 * @author wwwqyhme
+	 * 
+	 */
+	public static final class Statistics {
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder loadTime = new LongAdder();
+
+		public long getHitCount() {
+			return hits.sum();
+		}
+
+		public long getMissCount() {
+			return misses.sum();
+		}
+
+		public double getHitRate() {
+			long hitCount = hits.sum();
+			long total = hitCount + misses.sum();
+			return total == 0 ? 1.0D : (double) hitCount / total;
+		}
+
+		/**
+		 * 平均查询时间(毫秒)
+		 * 
+		 * @return
+		 */
+		public double getAverageLoadMillis() {
+			long missCount = misses.sum();
+			return missCount == 0 ? 0D : loadTime.sum() / 1000000D / missCount;
+		}
+	}
+
+	private static final class EntryExpiry implements Expiry<Key, Entry> {
+
+		@Override
+		public long expireAfterCreate(Key key, Entry value, long currentTime) {
+			return value.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(Key key, Entry value, long currentTime, long currentDuration) {
+			return value.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterRead(Key key, Entry value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final long ttlNanos;
+
+		Entry(Object value, long ttlNanos) {
+			super();
+			this.value = value;
+			this.ttlNanos = ttlNanos;
+		}
+	}
+
+	private static final class Key {
+		private final DataTagProcessor<?> processor;
+		private final String name;
+		private final Map<String, String> attributes;
+		private final Integer spaceId;
+		private final boolean login;
+		private final boolean preview;
+
+		Key(DataTagProcessor<?> processor, Map<String, String> attributes) {
+			super();
+			this.processor = processor;
+			this.name = processor.getName();
+			this.attributes = attributes;
+			this.spaceId = Environment.hasSpace() ? Environment.getSpace().getId() : null;
+			this.login = Environment.isLogin();
+			this.preview = Environment.isPreview();
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, attributes, spaceId, login, preview);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return login == other.login && preview == other.preview && Objects.equals(name, other.name)
+					&& Objects.equals(attributes, other.attributes) && Objects.equals(spaceId, other.spaceId);
+		}
+	}
+}
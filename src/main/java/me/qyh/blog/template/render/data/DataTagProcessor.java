@@ -26,6 +26,7 @@ import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
 
 import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.entity.Space;
@@ -38,6 +39,25 @@ public abstract class DataTagProcessor<T> {
 	private String name;// 数据名，唯一
 	private String dataName;// 默认数据绑定名，唯一
 	private boolean callable;// 是否可以被ajax调用
+	/**
+	 * 是否可以在模板处理之前并发查询，查询会在其他线程中执行，如果查询有副作用或者依赖当前线程中的状态(除了{@link Environment}以及锁的钥匙)，应该设置为false
+	 * 
+	 * @since 6.7
+	 */
+	private boolean prefetchable = true;
+	/**
+	 * 默认的缓存时间(秒)，小于1时不缓存，可以被data标签的cache属性覆盖
+	 * 
+	 * @see DataTagCache
+	 * @since 6.7
+	 */
+	private int cacheSeconds;
+	/**
+	 * 除了{@link DataTagCache}默认监听的事件之外，还需要清除缓存的事件
+	 * 
+	 * @since 6.7
+	 */
+	private List<Class<? extends ApplicationEvent>> cacheEvictOn = List.of();
 
 	protected static final Logger LOGGER = LoggerFactory.getLogger(DataTagProcessor.class);
 
@@ -70,6 +90,11 @@ public abstract class DataTagProcessor<T> {
 			public Object getData() throws LogicException {
 				return query(atts);
 			}
+
+			@Override
+			public boolean isPrefetchable() {
+				return prefetchable;
+			}
 		};
 	}
 
@@ -91,6 +116,36 @@ public abstract class DataTagProcessor<T> {
 		this.callable = callable;
 	}
 
+	public boolean isPrefetchable() {
+		return prefetchable;
+	}
+
+	public void setPrefetchable(boolean prefetchable) {
+		this.prefetchable = prefetchable;
+	}
+
+	public int getCacheSeconds() {
+		return cacheSeconds;
+	}
+
+	public void setCacheSeconds(int cacheSeconds) {
+		this.cacheSeconds = cacheSeconds;
+	}
+
+	public void setCacheEvictOn(List<Class<? extends ApplicationEvent>> cacheEvictOn) {
+		this.cacheEvictOn = List.copyOf(cacheEvictOn);
+	}
+
+	/**
+	 * 判断事件发生时是否需要清除缓存
+	 * 
+	 * @param event
+	 * @return
+	 */
+	public boolean isCacheEvictOn(ApplicationEvent event) {
+		return cacheEvictOn.stream().anyMatch(type -> type.isInstance(event));
+	}
+
 	protected Space getCurrentSpace() {
 		return Environment.getSpace();
 	}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import me.qyh.blog.core.entity.Article;
+import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.service.ArticleService;
+
+/**
+ * 相关文章
+ * <p>
+ * 相关文章由文章索引在后台计算，渲染时只会根据id查询文章
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class RelatedArticlesDataTagProcessor extends DataTagProcessor<List<Article>> {
+
+	private static final int DEFAULT_LIMIT = 5;
+	private static final int MAX_LIMIT = 10;
+
+	@Autowired
+	private ArticleService articleService;
+
+	public RelatedArticlesDataTagProcessor(String name, String dataName) {
+		super(name, dataName);
+	}
+
+	@Override
+	protected List<Article> query(Attributes attributes) throws LogicException {
+		Optional<Integer> id = attributes.getInteger("id");
+		if (!id.isPresent()) {
+			return new ArrayList<>();
+		}
+		int limit = attributes.getInteger("limit").orElse(DEFAULT_LIMIT);
+		if (limit < 1 || limit > MAX_LIMIT) {
+			limit = DEFAULT_LIMIT;
+		}
+		return articleService.queryRelatedArticles(id.get(), limit);
+	}
+
+	@Override
+	public List<String> getAttributes() {
+		return List.of("id", "limit");
+	}
+}
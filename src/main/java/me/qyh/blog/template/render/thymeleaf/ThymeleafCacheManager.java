@@ -16,15 +16,15 @@
 package me.qyh.blog.template.render.thymeleaf;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
-import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.AbstractApplicationContext;
 import org.thymeleaf.cache.AbstractCacheManager;
@@ -39,24 +39,83 @@ import org.thymeleaf.templateresource.ITemplateResource;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
-import me.qyh.blog.template.Template;
 import me.qyh.blog.template.event.TemplateEvitEvent;
 import me.qyh.blog.template.render.thymeleaf.ThymeleafTemplateResolver.TemplateResource;
-import me.qyh.blog.template.service.TemplateService;
 
 public class ThymeleafCacheManager extends AbstractCacheManager implements ApplicationListener<ContextRefreshedEvent> {
 
-	@Autowired
-	private TemplateService templateService;
-
 	private final ICache<TemplateCacheKey, TemplateModel> templateCache = new TemplateCache();
 	private final ICache<ExpressionCacheKey, Object> expressionCache = new ExpressionCache();
 
-	private final ThreadPoolExecutor tpe = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
-			new LinkedBlockingQueue<>(100));
+	/**
+	 * 模板缓存的版本
+	 * <p>
+	 * 查询模板前记录当前版本，清除模板缓存时递增版本并记录为该模板失效的版本，
+	 * 放入缓存时如果查询时的版本小于模板失效的版本，说明查询到的可能是旧的模板，不放入缓存
+	 * </p>
+	 * 
+	 * @since 6.7
+	 */
+	private final AtomicLong clock = new AtomicLong();
+	private final Map<String, Long> evitVersions = new ConcurrentHashMap<>();
+	private volatile long clearVersion;
+
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder stale = new LongAdder();
+
+	/**
+	 * 当前的版本，应该在查询模板之前获取
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public long currentVersion() {
+		return clock.get();
+	}
+
+	private boolean isCurrent(String templateName, long version) {
+		return version >= clearVersion && version >= evitVersions.getOrDefault(templateName, 0L);
+	}
+
+	private void evit(String templateName) {
+		evitVersions.put(templateName, clock.incrementAndGet());
+	}
+
+	private void evitAll() {
+		long version = clock.incrementAndGet();
+		clearVersion = version;
+		evitVersions.values().removeIf(v -> v < version);
+	}
+
+	/**
+	 * 放入缓存的模板数目
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public long getAdmittedCount() {
+		return admitted.sum();
+	}
 
-	public ThymeleafCacheManager() {
-		tpe.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+	/**
+	 * 由于查询之后模板发生了变更而没有放入缓存的数目
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * 放入缓存的同时模板发生了变更，随即从缓存中移除的数目
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public long getStaleCount() {
+		return stale.sum();
 	}
 
 	@Override
@@ -83,26 +142,25 @@ public class ThymeleafCacheManager extends AbstractCacheManager implements Appli
 			TemplateData templateData = value.getTemplateData();
 			ITemplateResource resource = templateData.getTemplateResource();
 			if (resource instanceof TemplateResource) {
-				// @since 6.0
-//				if (!CollectionUtils.isEmpty(key.getTemplateSelectors())) {
-//					return;
-//				}
-//				if (key.getOwnerTemplate() != null) {
-//					return;
-//				}
-				final Template template = ((TemplateResource) resource).getTemplate();
-				String templateName = templateData.getTemplate();
-				tpe.execute(() ->
 				/**
-				 * 如果是Template，此时应该和当前的Template进行比对，如果一致才放入缓存 因为如果读写操作并发执行的话，此时的数据可能是旧的数据
+				 * 如果读写操作并发执行的话，此时的模板可能是旧的模板，通过版本判断模板在查询之后是否发生了变更，
+				 * 放入之后需要再次检查，因为清除缓存可能发生在检查之后、放入之前
 				 * 
-				 * 这个操作可能是同步的，因此在首次载入时效率可能非常低
+				 * @since 6.7
 				 */
-				templateService.compareTemplate(templateName, template, flag -> {
-					if (flag) {
-						cache.put(key, value);
-					}
-				}));
+				long version = ((TemplateResource) resource).getVersion();
+				String templateName = templateData.getTemplate();
+				if (!isCurrent(templateName, version)) {
+					rejected.increment();
+					return;
+				}
+				cache.put(key, value);
+				if (!isCurrent(templateName, version)) {
+					cache.asMap().remove(key, value);
+					stale.increment();
+					return;
+				}
+				admitted.increment();
 			} else {
 				cache.put(key, value);
 			}
@@ -177,27 +235,20 @@ public class ThymeleafCacheManager extends AbstractCacheManager implements Appli
 		}
 	}
 
-	private final class ContextCloseListener implements ApplicationListener<ContextClosedEvent> {
-
-		@Override
-		public void onApplicationEvent(ContextClosedEvent event) {
-			if (event.getApplicationContext().getParent() == null) {
-				return;
-			}
-			tpe.shutdownNow();
-		}
-
-	}
-
 	private final class EvitListener implements ApplicationListener<TemplateEvitEvent> {
 
 		@Override
 		public void onApplicationEvent(TemplateEvitEvent event) {
 			if (event.clear()) {
+				evitAll();
 				templateCache.clear();
 				expressionCache.clear();
 			} else {
 				String[] templateNames = event.getTemplateNames();
+				// 先递增版本，再清除缓存
+				for (String templateName : templateNames) {
+					evit(templateName);
+				}
 				final Set<TemplateCacheKey> keysToBeRemoved = new HashSet<>(4 * templateNames.length);
 				final Set<TemplateCacheKey> templateCacheKeys = templateCache.keySet();
 				for (String templateName : templateNames) {
@@ -230,7 +281,6 @@ public class ThymeleafCacheManager extends AbstractCacheManager implements Appli
 		EvitListener evitListener = new EvitListener();
 		AbstractApplicationContext appContext = (AbstractApplicationContext) applicationContext;
 		appContext.addApplicationListener(evitListener);
-		appContext.addApplicationListener(new ContextCloseListener());
 	}
 
 }
@@ -15,6 +15,7 @@
  */
 package me.qyh.blog.template.render.thymeleaf;
 
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -45,6 +46,7 @@ import org.thymeleaf.standard.expression.FragmentExpression;
 import org.thymeleaf.standard.expression.IStandardExpressionParser;
 import org.thymeleaf.standard.expression.StandardExpressions;
 import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.FastStringWriter;
 
 import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.exception.LogicException;
@@ -80,6 +82,12 @@ public final class ThymeleafRenderExecutor implements TemplateRenderExecutor {
 		return doExecutor(viewTemplateName, model, request, response);
 	}
 
+	@Override
+	public void execute(String viewTemplateName, Map<String, Object> model, HttpServletRequest request,
+			ReadOnlyResponse response, Writer writer) {
+		doExecutor(viewTemplateName, model, request, response, writer);
+	}
+
 	@Override
 	public String processPjaxTemplateName(String templateName, HttpServletRequest request) throws LogicException {
 		Boolean fullpage = Boolean.parseBoolean(request.getHeader(X_FULLAPGE));
@@ -99,9 +107,16 @@ public final class ThymeleafRenderExecutor implements TemplateRenderExecutor {
 		}
 	}
 
-	// COPIED FROM ThymeleafView 3.0.9.RELEASE
 	private String doExecutor(String viewTemplateName, final Map<String, Object> model,
 			final HttpServletRequest request, final HttpServletResponse response) {
+		FastStringWriter writer = new FastStringWriter(1024);
+		doExecutor(viewTemplateName, model, request, response, writer);
+		return writer.toString();
+	}
+
+	// COPIED FROM ThymeleafView 3.0.9.RELEASE
+	private void doExecutor(String viewTemplateName, final Map<String, Object> model,
+			final HttpServletRequest request, final HttpServletResponse response, final Writer writer) {
 
 		Objects.requireNonNull(viewTemplateName);
 
@@ -199,7 +214,7 @@ public final class ThymeleafRenderExecutor implements TemplateRenderExecutor {
 		}
 		String contentType = ParseContextHolder.getContext().getConfig().getContentType();
 		TemplateSpec sec = new TemplateSpec(templateName, processMarkupSelectors, parseMode(contentType), null);
-		return viewTemplateEngine.process(sec, context);
+		viewTemplateEngine.process(sec, context, writer);
 	}
 
 	/**
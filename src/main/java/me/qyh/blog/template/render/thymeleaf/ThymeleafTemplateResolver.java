@@ -41,8 +41,20 @@ public class ThymeleafTemplateResolver implements ITemplateResolver {
 	@Autowired
 	private TemplateService templateService;
 
+	private final ThymeleafCacheManager cacheManager;
+
 	private final ITemplateResource emptyTemplateResource = new StringTemplateResource("");
 
+	/**
+	 * @since 6.7
+	 * @param cacheManager
+	 *            用于获取模板的版本
+	 */
+	public ThymeleafTemplateResolver(ThymeleafCacheManager cacheManager) {
+		super();
+		this.cacheManager = cacheManager;
+	}
+
 	@Override
 	public String getName() {
 		return this.getClass().getName();
@@ -59,8 +71,11 @@ public class ThymeleafTemplateResolver implements ITemplateResolver {
 		if (!Template.isTemplate(templateName)) {
 			return null;
 		}
+		// 版本必须在查询模板之前获取，查询期间发生的变更会使这个版本失效
+		long version = cacheManager.currentVersion();
 		Optional<Template> optional = templateService.queryTemplate(templateName);
-		ITemplateResource templateResource = optional.<ITemplateResource>map(TemplateResource::new)
+		ITemplateResource templateResource = optional
+				.<ITemplateResource>map(template -> new TemplateResource(template, version))
 				.orElseGet(() -> emptyTemplateResource);
 		ICacheEntryValidity cacheEntryValidity = optional.map(template -> {
 			return template.cacheable() ? AlwaysValidCacheEntryValidity.INSTANCE
@@ -73,10 +88,12 @@ public class ThymeleafTemplateResolver implements ITemplateResolver {
 	public final class TemplateResource implements ITemplateResource {
 
 		private final Template template;
+		private final long version;
 
-		private TemplateResource(Template template) {
+		private TemplateResource(Template template, long version) {
 			super();
 			this.template = template;
+			this.version = version;
 		}
 
 		@Override
@@ -107,5 +124,15 @@ public class ThymeleafTemplateResolver implements ITemplateResolver {
 		public Template getTemplate() {
 			return template;
 		}
+
+		/**
+		 * 查询模板时模板缓存的版本
+		 * 
+		 * @since 6.7
+		 * @return
+		 */
+		public long getVersion() {
+			return version;
+		}
 	}
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template.render.thymeleaf.dialect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEnd;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.ITemplateStart;
+import org.thymeleaf.processor.templateboundaries.AbstractTemplateBoundariesProcessor;
+import org.thymeleaf.processor.templateboundaries.ITemplateBoundariesStructureHandler;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import me.qyh.blog.core.context.Environment;
+import me.qyh.blog.core.context.LockKeyContext;
+import me.qyh.blog.core.entity.LockKey;
+import me.qyh.blog.core.entity.Space;
+import me.qyh.blog.core.entity.User;
+import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.util.Validators;
+import me.qyh.blog.template.render.Fragments;
+import me.qyh.blog.template.render.ParseContext;
+import me.qyh.blog.template.render.ParseContextHolder;
+import me.qyh.blog.template.render.ParsedTemplate;
+import me.qyh.blog.template.service.TemplateService;
+import me.qyh.blog.template.validator.FragmentValidator;
+import me.qyh.blog.template.vo.DataBind;
+import me.qyh.blog.template.vo.DataTag;
+
+/**
+ * 在页面处理之前，找出页面(包括fragment标签引入的片段)中所有静态的data标签，并发地查询数据，
+ * data标签处理时直接使用查询结果，使相互独立的查询不必依次等待
+ * <p>
+ * 只有满足以下条件的data标签才会被预先查询：
+ * <ul>
+ * <li>属性都是静态的(没有th:以及ref-属性)并且不是lazy的</li>
+ * <li>不在任何带有表达式属性的元素以及private、period、locked、unlocked等条件标签内</li>
+ * <li>不在lock、redirect以及transaction:begin标签之后</li>
+ * <li>对应的{@link DataBind#isPrefetchable()}为true</li>
+ * </ul>
+ * 其余的data标签仍然在处理时同步查询。线程池满时同样退回同步查询
+ * </p>
+ * <p>
+ * 查询在名为{@value #EXECUTOR_BEAN_NAME}的线程池中执行，如果不存在该线程池，那么不会预先查询
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ *
+ */
+public class DataTagPrefetchProcessor extends AbstractTemplateBoundariesProcessor {
+
+	private static final int PRECEDENCE = 1000;
+
+	private static final String EXECUTOR_BEAN_NAME = "dataPrefetchExecutor";
+
+	private static final String DATA = "data";
+	private static final String FRAGMENT = "fragment";
+	private static final String NAME = "name";
+	private static final String MODE = "mode";
+	private static final String CACHE = "cache";
+	private static final String LAZY = "lazy";
+	private static final String REF_PREFIX = "ref-";
+	private static final String DATA_DYNAMIC_ATT_PREFIX = "data-th-";
+
+	/**
+	 * 这些标签内的内容是否被处理取决于运行时的状态
+	 */
+	private static final Set<String> CONDITIONAL_ELEMENTS = Set.of("private", "period", "locked", "unlocked");
+
+	/**
+	 * 这些标签可能会中断页面的处理或者改变之后查询的状态，之后的data标签不再预先查询
+	 */
+	private static final Set<String> BARRIER_ELEMENTS = Set.of("lock", "redirect", "transaction:begin");
+
+	private static final int MAX_PREFETCH = 32;
+	private static final int MAX_FRAGMENT_DEPTH = 5;
+
+	private final TemplateService templateService;
+	private AsyncTaskExecutor executor;
+
+	public DataTagPrefetchProcessor(ApplicationContext applicationContext) {
+		super(TemplateMode.HTML, PRECEDENCE);
+		this.templateService = applicationContext.getBean(TemplateService.class);
+		try {
+			this.executor = applicationContext.getBean(EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+		} catch (BeansException e) {
+			this.executor = null;
+		}
+	}
+
+	@Override
+	public void doProcessTemplateStart(ITemplateContext context, ITemplateStart templateStart,
+			ITemplateBoundariesStructureHandler structureHandler) {
+		if (executor == null || context.getTemplateStack().size() != 1) {
+			return;
+		}
+		ParseContext parseContext = ParseContextHolder.getContext();
+		boolean onlyCallable = parseContext.isOnlyCallable()
+				&& !parseContext.getRoot().map(ParsedTemplate::isCallable).orElse(false);
+		TemplateData templateData = context.getTemplateData();
+		List<DataTag> tags = new ArrayList<>();
+		List<String> templateNames = new ArrayList<>();
+		collect(context, templateData.getTemplate(), templateData.getTemplateSelectors(), tags, templateNames, 0);
+		for (int i = 0; i < tags.size(); i++) {
+			DataTag tag = tags.get(i);
+			Optional<DataBind> optional = templateService.queryData(tag, onlyCallable);
+			if (!optional.isPresent() || !optional.get().isPrefetchable()) {
+				continue;
+			}
+			Future<Object> future;
+			try {
+				future = executor.submit(new PrefetchTask(optional.get()));
+			} catch (RejectedExecutionException e) {
+				return;
+			}
+			Map<String, String> attributes = new HashMap<>();
+			tag.getAttrs().forEach((k, v) -> attributes.put(k, (String) v));
+			parseContext.addPrefetched(templateNames.get(i), attributes, future);
+		}
+	}
+
+	@Override
+	public void doProcessTemplateEnd(ITemplateContext context, ITemplateEnd templateEnd,
+			ITemplateBoundariesStructureHandler structureHandler) {
+		// do nothing
+	}
+
+	/**
+	 * 收集模板中可以预先查询的data标签
+	 * 
+	 * @return 如果遇到了{@link #BARRIER_ELEMENTS}，返回false
+	 */
+	private boolean collect(ITemplateContext context, String templateName, Set<String> selectors,
+			List<DataTag> tags, List<String> templateNames, int depth) {
+		IModel model = context.getConfiguration().getTemplateManager().parseStandalone(context, templateName,
+				selectors, TemplateMode.HTML, true, false);
+		if (model == null) {
+			return true;
+		}
+		Deque<Boolean> ancestors = new ArrayDeque<>();
+		int unsafe = 0;
+		for (int i = 0; i < model.size(); i++) {
+			if (tags.size() >= MAX_PREFETCH) {
+				return false;
+			}
+			ITemplateEvent event = model.get(i);
+			if (event instanceof ICloseElementTag) {
+				if (!ancestors.isEmpty() && ancestors.pop()) {
+					unsafe--;
+				}
+				continue;
+			}
+			if (!(event instanceof IProcessableElementTag)) {
+				continue;
+			}
+			IProcessableElementTag tag = (IProcessableElementTag) event;
+			String elementName = tag.getElementCompleteName();
+			if (BARRIER_ELEMENTS.contains(elementName)) {
+				return false;
+			}
+			if (unsafe == 0 && !hasDynamicAttribute(tag)) {
+				if (DATA.equals(elementName)) {
+					getDataTag(tag).ifPresent(dataTag -> {
+						tags.add(dataTag);
+						templateNames.add(templateName);
+					});
+				} else if (FRAGMENT.equals(elementName) && depth < MAX_FRAGMENT_DEPTH
+						&& !collectFragment(context, tag, tags, templateNames, depth)) {
+					return false;
+				}
+			}
+			if (event instanceof IOpenElementTag) {
+				boolean conditional = elementName.indexOf(':') != -1 || CONDITIONAL_ELEMENTS.contains(elementName)
+						|| hasDynamicAttribute(tag);
+				ancestors.push(conditional);
+				if (conditional) {
+					unsafe++;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean collectFragment(ITemplateContext context, IProcessableElementTag tag, List<DataTag> tags,
+			List<String> templateNames, int depth) {
+		String name = tag.getAttributeValue(NAME);
+		// 开启了缓存的fragment很可能不会被处理
+		if (name == null || tag.hasAttribute(MODE) || tag.hasAttribute(CACHE)) {
+			return true;
+		}
+		try {
+			FragmentValidator.validName(name, false);
+		} catch (LogicException e) {
+			return true;
+		}
+		return collect(context, Fragments.getCurrentTemplateName(name), null, tags, templateNames, depth + 1);
+	}
+
+	private Optional<DataTag> getDataTag(IProcessableElementTag tag) {
+		Map<String, Object> attributes = new HashMap<>();
+		for (IAttribute attribute : tag.getAllAttributes()) {
+			String completeName = attribute.getAttributeCompleteName();
+			if (completeName.startsWith(REF_PREFIX)) {
+				return Optional.empty();
+			}
+			attributes.put(completeName, attribute.getValue());
+		}
+		String name = (String) attributes.get(NAME);
+		if (Validators.isEmptyOrNull(name, true) || Boolean.parseBoolean((String) attributes.get(LAZY))) {
+			return Optional.empty();
+		}
+		return Optional.of(new DataTag(name, attributes));
+	}
+
+	private boolean hasDynamicAttribute(IProcessableElementTag tag) {
+		for (IAttribute attribute : tag.getAllAttributes()) {
+			String completeName = attribute.getAttributeCompleteName();
+			if (completeName.indexOf(':') != -1 || completeName.startsWith(DATA_DYNAMIC_ATT_PREFIX)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 在其他线程中查询数据，查询时使用当前请求的环境以及锁的钥匙
+	 */
+	private static final class PrefetchTask implements Callable<Object> {
+		private final DataBind bind;
+		private final User user;
+		private final Space space;
+		private final String ip;
+		private final boolean preview;
+		private final List<LockKey> keys;
+
+		PrefetchTask(DataBind bind) {
+			super();
+			this.bind = bind;
+			this.user = Environment.getUser();
+			this.space = Environment.getSpace();
+			this.ip = Environment.getIP();
+			this.preview = Environment.isPreview();
+			List<LockKey> keys = LockKeyContext.getKeys();
+			this.keys = keys == null ? null : new ArrayList<>(keys);
+		}
+
+		@Override
+		public Object call() throws LogicException {
+			Environment.setUser(user);
+			Environment.setSpace(space);
+			Environment.setIP(ip);
+			Environment.setPreview(preview);
+			if (keys != null) {
+				LockKeyContext.set(keys);
+			}
+			try {
+				return bind.getData();
+			} finally {
+				Environment.remove();
+				LockKeyContext.remove();
+			}
+		}
+	}
+}
@@ -21,6 +21,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -105,6 +107,14 @@ public class DataTagProcessor extends DefaultAttributesTagProcessor {
 
 			Map<String, Object> tagAttMap = new HashMap<>(attMap);
 
+			/**
+			 * @since 6.7
+			 */
+			Optional<Future<Object>> prefetched = Optional.empty();
+			if (!Boolean.parseBoolean(attMap.get(LAZY))) {
+				prefetched = ParseContextHolder.getContext().pollPrefetched(tag.getTemplateName(), attMap);
+			}
+
 			IWebContext webContext = (IWebContext) context;
 			HttpServletRequest request = webContext.getRequest();
 
@@ -130,6 +140,7 @@ public class DataTagProcessor extends DefaultAttributesTagProcessor {
 				}
 			}
 			DataTag dataTag = new DataTag(name, tagAttMap);
+			Optional<Future<Object>> future = prefetched;
 
 			Optional<DataBind> optional = queryDataBind(dataTag);
 			optional.ifPresent(dataBind -> {
@@ -149,6 +160,8 @@ public class DataTagProcessor extends DefaultAttributesTagProcessor {
 						}
 
 					});
+				} else if (future.isPresent()) {
+					request.setAttribute(bind.getDataName(), getData(future.get()));
 				} else {
 					request.setAttribute(bind.getDataName(), getData(bind));
 				}
@@ -171,4 +184,22 @@ public class DataTagProcessor extends DefaultAttributesTagProcessor {
 		}
 	}
 
+	private Object getData(Future<Object> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SystemException(e.getMessage(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof LogicException) {
+				throw new RuntimeLogicException((LogicException) cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new SystemException(cause.getMessage(), cause);
+		}
+	}
+
 }
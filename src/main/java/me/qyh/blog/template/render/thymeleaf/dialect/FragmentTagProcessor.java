@@ -16,8 +16,13 @@
 package me.qyh.blog.template.render.thymeleaf.dialect;
 
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
+import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.thymeleaf.TemplateSpec;
 import org.thymeleaf.context.ITemplateContext;
@@ -26,8 +31,11 @@ import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.FastStringWriter;
 
+import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.util.Times;
 import me.qyh.blog.core.util.Validators;
+import me.qyh.blog.template.render.FragmentCache;
 import me.qyh.blog.template.render.Fragments;
 import me.qyh.blog.template.validator.FragmentValidator;
 
@@ -49,6 +57,23 @@ public class FragmentTagProcessor extends DefaultAttributesTagProcessor {
 	private static final String NAME = "name";
 	private static final String MODE = "mode";
 
+	/**
+	 * 缓存时间，例如60s、5m
+	 * 
+	 * @see FragmentCache
+	 * @since 6.7
+	 */
+	private static final String CACHE = "cache";
+
+	/**
+	 * 缓存时需要区分的变量名，多个变量名用,分隔
+	 * 
+	 * @since 6.7
+	 */
+	private static final String VARY = "vary";
+
+	private FragmentCache fragmentCache;
+
 	public FragmentTagProcessor(String dialectPrefix, ApplicationContext ctx) {
 		super(TemplateMode.HTML, // This processor will apply only to HTML mode
 				dialectPrefix, // Prefix to be applied to name for matching
@@ -57,6 +82,11 @@ public class FragmentTagProcessor extends DefaultAttributesTagProcessor {
 				null, // No attribute name: will match by tag name
 				false, // No prefix to be applied to attribute name
 				PRECEDENCE); // Precedence (inside dialect's own precedence)
+		try {
+			this.fragmentCache = ctx.getBean(FragmentCache.class);
+		} catch (BeansException e) {
+			this.fragmentCache = null;
+		}
 	}
 
 	@Override
@@ -84,14 +114,45 @@ public class FragmentTagProcessor extends DefaultAttributesTagProcessor {
 
 			String templateName = Fragments.getCurrentTemplateName(name);
 
+			long cacheSeconds = fragmentCache == null || Environment.isPreview() ? 0
+					: Times.parseSeconds(attMap.get(CACHE));
+			FragmentCache.Key key = null;
+			long version = 0;
+			if (cacheSeconds > 0) {
+				key = new FragmentCache.Key(templateName, templateMode.name(), getVary(context, attMap.get(VARY)));
+				Optional<String> cached = fragmentCache.get(key);
+				if (cached.isPresent()) {
+					structureHandler.replaceWith(cached.get(), false);
+					return;
+				}
+				version = fragmentCache.getVersion();
+			}
+
 			Writer writer = new FastStringWriter(200);
 
 			context.getConfiguration().getTemplateManager()
 					.parseAndProcess(new TemplateSpec(templateName, templateMode), context, writer);
-			structureHandler.replaceWith(writer.toString(), false);
+			String content = writer.toString();
+			if (key != null) {
+				fragmentCache.put(key, content, cacheSeconds, version);
+			}
+			structureHandler.replaceWith(content, false);
 			return;
 		}
 		structureHandler.removeElement();
 	}
 
+	private List<String> getVary(ITemplateContext context, String vary) {
+		List<String> values = new ArrayList<>();
+		if (!Validators.isEmptyOrNull(vary, true)) {
+			for (String variable : vary.split(",")) {
+				String trimed = variable.trim();
+				if (!trimed.isEmpty()) {
+					values.add(trimed + "=" + Objects.toString(context.getVariable(trimed), ""));
+				}
+			}
+		}
+		return values;
+	}
+
 }
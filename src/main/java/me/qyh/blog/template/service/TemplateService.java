@@ -17,7 +17,6 @@ package me.qyh.blog.template.service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Consumer;
 
 import me.qyh.blog.core.entity.Space;
 import me.qyh.blog.core.exception.LogicException;
@@ -183,18 +182,6 @@ public interface TemplateService {
 	 */
 	List<ImportRecord> importPage(ExportPages exportPages);
 
-	/**
-	 * 检查template是否和当前的template一致
-	 * <p>
-	 * <b> 这个方法执行期间的时候不应该出现写操作并行执行 consumer应该简短</b>
-	 * </p>
-	 * 
-	 * @param templateName
-	 * @param template
-	 * @param consumer
-	 */
-	void compareTemplate(String templateName, Template template, Consumer<Boolean> consumer);
-
 	/**
 	 * 注册一个预览页面
 	 * <p>
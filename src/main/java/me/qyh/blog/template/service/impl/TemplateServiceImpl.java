@@ -33,7 +33,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -101,6 +100,7 @@ import me.qyh.blog.template.event.PageCreateEvent;
 import me.qyh.blog.template.event.PageDelEvent;
 import me.qyh.blog.template.event.PageUpdateEvent;
 import me.qyh.blog.template.event.TemplateEvitEvent;
+import me.qyh.blog.template.render.data.DataTagCache;
 import me.qyh.blog.template.render.data.DataTagProcessor;
 import me.qyh.blog.template.service.TemplateService;
 import me.qyh.blog.template.vo.DataBind;
@@ -145,6 +145,8 @@ public class TemplateServiceImpl implements TemplateService, ApplicationEventPub
 	private PlatformTransactionManager platformTransactionManager;
 	@Autowired
 	private TemplateMapping templateMapping;
+	@Autowired(required = false)
+	private DataTagCache dataTagCache;
 
 	private ApplicationEventPublisher applicationEventPublisher;
 
@@ -389,7 +391,11 @@ public class TemplateServiceImpl implements TemplateService, ApplicationEventPub
 			processor = processor.filter(DataTagProcessor::isCallable);
 		}
 		if (processor.isPresent()) {
-			return Optional.of(processor.get().getData(dataTag.getAttrs()));
+			DataBind bind = processor.get().getData(dataTag.getAttrs());
+			if (dataTagCache != null) {
+				bind = dataTagCache.wrap(processor.get(), dataTag.getAttrs(), bind);
+			}
+			return Optional.of(bind);
 		}
 		return Optional.empty();
 	}
@@ -430,15 +436,6 @@ public class TemplateServiceImpl implements TemplateService, ApplicationEventPub
 		}
 	}
 
-	@Override
-	public synchronized void compareTemplate(String templateName, Template template, Consumer<Boolean> consumer) {
-		Transactions.executeInReadOnlyTransaction(platformTransactionManager, status -> {
-			Optional<Template> current = queryTemplate(templateName);
-			boolean equalsTo = current.isPresent() && template != null && current.get().equalsTo(template);
-			consumer.accept(equalsTo);
-		});
-	}
-
 	@Override
 	public synchronized List<ImportRecord> importPage(ExportPages exportPages) {
 		List<ExportPage> exportPageList = exportPages.getPages();
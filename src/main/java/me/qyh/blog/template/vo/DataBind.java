@@ -28,6 +28,16 @@ public abstract class DataBind {
 
 	public abstract Object getData() throws LogicException;
 
+	/**
+	 * 是否可以在模板处理之前在其他线程中预先查询
+	 * 
+	 * @since 6.7
+	 * @return
+	 */
+	public boolean isPrefetchable() {
+		return false;
+	}
+
 	public String getDataName() {
 		return dataName;
 	}
@@ -11,12 +11,14 @@ public class DataTagProcessorBean {
 	private final boolean callable;
 
 	private final List<String> attrs;
+	private final int cacheSeconds;
 
 	public DataTagProcessorBean(DataTagProcessor<?> processor) {
 		this.name = processor.getName();
 		this.dataName = processor.getDataName();
 		this.callable = processor.isCallable();
 		this.attrs = processor.getAttributes();
+		this.cacheSeconds = processor.getCacheSeconds();
 	}
 
 	public String getName() {
@@ -35,4 +37,8 @@ public class DataTagProcessorBean {
 		return attrs;
 	}
 
+	public int getCacheSeconds() {
+		return cacheSeconds;
+	}
+
 }
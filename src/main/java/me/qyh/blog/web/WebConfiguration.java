@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.MethodParameter;
@@ -43,7 +44,6 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.ViewNameMethodReturnValueHandler;
 import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.cache.ICacheManager;
 import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.templatemode.TemplateMode;
 
@@ -59,7 +59,10 @@ import me.qyh.blog.template.render.TemplateRenderException;
 import me.qyh.blog.template.render.thymeleaf.ThymeleafCacheManager;
 import me.qyh.blog.template.render.thymeleaf.ThymeleafTemplateEngine;
 import me.qyh.blog.template.render.thymeleaf.ThymeleafTemplateResolver;
+import me.qyh.blog.web.view.TemplateContentVersion;
+import me.qyh.blog.web.view.TemplatePageCache;
 import me.qyh.blog.web.view.TemplateReturnValueHandler;
+import me.qyh.blog.web.view.TemplateReturnValueHandler.ETagMode;
 
 /**
  * 替代默认的RequestMappingHandlerMapping
@@ -74,6 +77,18 @@ public class WebConfiguration extends WebMvcConfigurationSupport {
 	private WebExceptionResolver exceptionResolver;
 	@Autowired
 	private TemplateRender templateRender;
+	@Autowired(required = false)
+	private TemplatePageCache templatePageCache;
+
+	/**
+	 * @since 6.7
+	 */
+	@Value("${template.render.streaming:false}")
+	private boolean streaming;
+	@Value("${template.render.streamBufferSize:16384}")
+	private int streamBufferSize;
+	@Value("${template.etag:NONE}")
+	private ETagMode etagMode;
 
 	private static final Integer cacheSec = 31556926;
 
@@ -146,13 +161,18 @@ public class WebConfiguration extends WebMvcConfigurationSupport {
 	}
 
 	@Bean
-	public ICacheManager templateCacheManager() {
+	public ThymeleafCacheManager templateCacheManager() {
 		return new ThymeleafCacheManager();
 	}
 
+	@Bean
+	public TemplateContentVersion templateContentVersion() {
+		return new TemplateContentVersion();
+	}
+
 	@Bean
 	public ThymeleafTemplateResolver thymeleafTemplateResolver() {
-		return new ThymeleafTemplateResolver();
+		return new ThymeleafTemplateResolver(templateCacheManager());
 	}
 
 	@Bean
@@ -177,7 +197,11 @@ public class WebConfiguration extends WebMvcConfigurationSupport {
 
 	@Override
 	protected void addReturnValueHandlers(List<HandlerMethodReturnValueHandler> returnValueHandlers) {
-		returnValueHandlers.add(new TemplateReturnValueHandler(templateRender));
+		TemplateReturnValueHandler handler = new TemplateReturnValueHandler(templateRender, templatePageCache);
+		handler.setStreaming(streaming);
+		handler.setStreamBufferSize(streamBufferSize);
+		handler.setETagMode(etagMode, templateContentVersion());
+		returnValueHandlers.add(handler);
 	}
 
 	private final class WebViewNameMethodReturnValueHandler extends ViewNameMethodReturnValueHandler {
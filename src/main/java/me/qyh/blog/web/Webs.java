@@ -22,11 +22,13 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.MediaType;
+import org.springframework.util.CollectionUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 
 import me.qyh.blog.core.config.Constants;
 import me.qyh.blog.core.config.UrlHelper.CurrentEnvUrls;
+import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.exception.SystemException;
 import me.qyh.blog.core.message.Message;
 import me.qyh.blog.core.util.ExceptionUtils;
@@ -204,6 +206,22 @@ public class Webs {
 		return Boolean.TRUE.equals(isPreview);
 	}
 
+	/**
+	 * 判断是否是匿名的GET请求：没有登录用户、没有解锁钥匙、不是预览IP并且不是解锁或者错误页面请求
+	 * <p>
+	 * 这类请求对于所有访问者来说渲染的结果都是相同的
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param request
+	 * @return
+	 */
+	public static boolean isAnonymousGetRequest(HttpServletRequest request) {
+		return "GET".equals(request.getMethod()) && !Environment.isLogin()
+				&& CollectionUtils.isEmpty(LockHelper.getKeys(request)) && !isPreview(request)
+				&& !unlockRequest(request) && !errorRequest(request);
+	}
+
 	/**
 	 * 从BindingResult中获取第一个错误，并且转化为JsonResult
 	 * 
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.web.controller.back;
+
+/**
+ * 默认点击策略的刷新统计
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+class HitsFlushStatistics {
+	private final int pendingSize;
+	private final long lastFlushMillis;
+
+	HitsFlushStatistics(int pendingSize, long lastFlushMillis) {
+		super();
+		this.pendingSize = pendingSize;
+		this.lastFlushMillis = lastFlushMillis;
+	}
+
+	public int getPendingSize() {
+		return pendingSize;
+	}
+
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+
+}
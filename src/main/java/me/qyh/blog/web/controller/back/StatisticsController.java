@@ -70,6 +70,15 @@ public class StatisticsController extends BaseMgrController {
 			if (space == null) {
 				detail.setFileStatistics(fileService.queryFileStatistics());
 				detail.setNewsStatistics(newsService.queryNewsStatistics());
+				// 点击数缓冲是全局的，只在默认空间下显示，没有使用默认点击策略时不显示
+				if (articleService.getHitsPendingSize() >= 0) {
+					detail.setArticleHitsFlushStatistics(new HitsFlushStatistics(articleService.getHitsPendingSize(),
+							articleService.getHitsLastFlushMillis()));
+				}
+				if (newsService.getHitsPendingSize() >= 0) {
+					detail.setNewsHitsFlushStatistics(new HitsFlushStatistics(newsService.getHitsPendingSize(),
+							newsService.getHitsLastFlushMillis()));
+				}
 			}
 
 			detail.setPageStatistics(templateService.queryPageStatistics(space));
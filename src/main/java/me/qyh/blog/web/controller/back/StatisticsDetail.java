@@ -29,6 +29,8 @@ class StatisticsDetail {
 	private PageStatistics pageStatistics;
 	private FileStatistics fileStatistics;
 	private NewsStatistics newsStatistics;
+	private HitsFlushStatistics articleHitsFlushStatistics;
+	private HitsFlushStatistics newsHitsFlushStatistics;
 
 	public ArticleDetailStatistics getArticleStatistics() {
 		return articleStatistics;
@@ -78,4 +80,20 @@ class StatisticsDetail {
 		this.newsStatistics = newsStatistics;
 	}
 
+	public HitsFlushStatistics getArticleHitsFlushStatistics() {
+		return articleHitsFlushStatistics;
+	}
+
+	public void setArticleHitsFlushStatistics(HitsFlushStatistics articleHitsFlushStatistics) {
+		this.articleHitsFlushStatistics = articleHitsFlushStatistics;
+	}
+
+	public HitsFlushStatistics getNewsHitsFlushStatistics() {
+		return newsHitsFlushStatistics;
+	}
+
+	public void setNewsHitsFlushStatistics(HitsFlushStatistics newsHitsFlushStatistics) {
+		this.newsHitsFlushStatistics = newsHitsFlushStatistics;
+	}
+
 }
\ No newline at end of file
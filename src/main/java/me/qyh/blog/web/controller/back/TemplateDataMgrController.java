@@ -15,6 +15,8 @@
  */
 package me.qyh.blog.web.controller.back;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -26,6 +28,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import me.qyh.blog.core.message.Message;
 import me.qyh.blog.core.vo.JsonResult;
+import me.qyh.blog.template.render.data.DataTagCache;
 import me.qyh.blog.template.service.TemplateService;
 
 @Controller
@@ -34,10 +37,13 @@ public class TemplateDataMgrController extends BaseMgrController {
 
 	@Autowired
 	private TemplateService templateService;
+	@Autowired(required = false)
+	private DataTagCache dataTagCache;
 
 	@GetMapping("index")
 	public String index(Model model) {
 		model.addAttribute("datas", templateService.queryDataTags());
+		model.addAttribute("cacheStatistics", dataTagCache == null ? Map.of() : dataTagCache.getStatistics());
 		return "mgr/template/data";
 	}
 
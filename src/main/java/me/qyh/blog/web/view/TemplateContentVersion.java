@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.web.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ApplicationEvent;
+
+import me.qyh.blog.core.entity.Article;
+import me.qyh.blog.core.entity.Space;
+import me.qyh.blog.core.event.ArticleCreateEvent;
+import me.qyh.blog.core.event.ArticleDelEvent;
+import me.qyh.blog.core.event.ArticlePublishEvent;
+import me.qyh.blog.core.event.ArticleUpdateEvent;
+import me.qyh.blog.core.event.LockCreateEvent;
+import me.qyh.blog.core.event.LockDelEvent;
+import me.qyh.blog.core.event.LockUpdateEvent;
+import me.qyh.blog.core.event.NewsCreateEvent;
+import me.qyh.blog.core.event.NewsDelEvent;
+import me.qyh.blog.core.event.NewsUpdateEvent;
+import me.qyh.blog.core.event.SpaceCreateEvent;
+import me.qyh.blog.core.event.SpaceDelEvent;
+import me.qyh.blog.core.event.SpaceUpdateEvent;
+import me.qyh.blog.template.entity.Page;
+import me.qyh.blog.template.event.PageCreateEvent;
+import me.qyh.blog.template.event.PageDelEvent;
+import me.qyh.blog.template.event.PageUpdateEvent;
+import me.qyh.blog.template.event.TemplateEvitEvent;
+import me.qyh.blog.template.render.EventEvictSupport;
+
+/**
+ * 模板页面的内容版本，用于生成弱ETag以及Last-Modified
+ * <p>
+ * 文章以及页面的变更只会改变所在空间以及默认空间(没有空间的页面)的版本，其他事件(动态、空间、锁、模板缓存清除等)会改变所有空间的版本。
+ * 插件可以通过{@link #evictOn(Class)}添加其他的事件
+ * </p>
+ * <p>
+ * 版本只保存在内存中，每次启动后都会重新计数，因此版本中包含了启动时间
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class TemplateContentVersion extends EventEvictSupport {
+
+	/**
+	 * 默认空间(没有空间)的key，空间的ID从1开始
+	 */
+	private static final Integer ROOT = 0;
+
+	private final long bootTime = System.currentTimeMillis();
+	private final AtomicLong sequence = new AtomicLong();
+
+	private volatile Version global = new Version(0, bootTime);
+	private final Map<Integer, Version> spaceVersions = new ConcurrentHashMap<>();
+
+	public TemplateContentVersion() {
+		super(List.of(NewsCreateEvent.class, NewsDelEvent.class, NewsUpdateEvent.class, SpaceCreateEvent.class,
+				SpaceDelEvent.class, SpaceUpdateEvent.class, LockCreateEvent.class, LockDelEvent.class,
+				LockUpdateEvent.class, TemplateEvitEvent.class));
+	}
+
+	/**
+	 * 获取空间当前的版本
+	 * 
+	 * @param space
+	 *            空间，如果为null，则为默认空间
+	 * @return
+	 */
+	public Version getVersion(Space space) {
+		Version global = this.global;
+		Version spaceVersion = spaceVersions.get(space == null ? ROOT : space.getId());
+		if (spaceVersion == null || spaceVersion.seq < global.seq) {
+			return global;
+		}
+		return spaceVersion;
+	}
+
+	/**
+	 * 改变所有空间的版本
+	 */
+	@Override
+	protected void doEvictAll() {
+		doChange(null);
+	}
+
+	/**
+	 * 事务提交之前渲染的页面可能读取到了旧的数据，提交之后需要再次改变版本
+	 * 
+	 * @param spaceIds
+	 */
+	private void change(List<Integer> spaceIds) {
+		evict(() -> doChange(spaceIds));
+	}
+
+	private void doChange(List<Integer> spaceIds) {
+		Version version = new Version(sequence.incrementAndGet(), System.currentTimeMillis());
+		if (spaceIds == null) {
+			global = version;
+		} else {
+			for (Integer spaceId : spaceIds) {
+				spaceVersions.put(spaceId, version);
+			}
+		}
+	}
+
+	private void changeArticleSpaces(List<Article> articles) {
+		List<Integer> spaceIds = new ArrayList<>();
+		spaceIds.add(ROOT);
+		for (Article article : articles) {
+			if (article.getSpace() != null) {
+				spaceIds.add(article.getSpace().getId());
+			}
+		}
+		change(spaceIds);
+	}
+
+	private void changePageSpaces(List<Page> pages) {
+		List<Integer> spaceIds = new ArrayList<>();
+		for (Page page : pages) {
+			spaceIds.add(page.getSpace() == null ? ROOT : page.getSpace().getId());
+		}
+		change(spaceIds);
+	}
+
+	@Override
+	protected void onEvent(ApplicationEvent event) {
+		if (event instanceof ArticleCreateEvent) {
+			changeArticleSpaces(List.of(((ArticleCreateEvent) event).getArticle()));
+			return;
+		}
+		if (event instanceof ArticleUpdateEvent) {
+			ArticleUpdateEvent aue = (ArticleUpdateEvent) event;
+			changeArticleSpaces(List.of(aue.getOldArticle(), aue.getNewArticle()));
+			return;
+		}
+		if (event instanceof ArticleDelEvent) {
+			changeArticleSpaces(((ArticleDelEvent) event).getArticles());
+			return;
+		}
+		if (event instanceof ArticlePublishEvent) {
+			changeArticleSpaces(((ArticlePublishEvent) event).getArticles());
+			return;
+		}
+		if (event instanceof PageCreateEvent) {
+			changePageSpaces(List.of(((PageCreateEvent) event).getPage()));
+			return;
+		}
+		if (event instanceof PageUpdateEvent) {
+			PageUpdateEvent pue = (PageUpdateEvent) event;
+			changePageSpaces(List.of(pue.getOldPage(), pue.getNewPage()));
+			return;
+		}
+		if (event instanceof PageDelEvent) {
+			changePageSpaces(((PageDelEvent) event).getPages());
+			return;
+		}
+		super.onEvent(event);
+	}
+
+	/**
+	 * 内容版本
+	 * 
+	 * @author wwwqyhme
+	 * 
+	 */
+	public final class Version {
+		private final long seq;
+		private final long lastModified;
+
+		private Version(long seq, long lastModified) {
+			super();
+			this.seq = seq;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * 版本最后修改的时间
+		 * 
+		 * @return
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		@Override
+		public String toString() {
+			return Long.toString(bootTime, 36) + "-" + Long.toString(seq, 36);
+		}
+	}
+}
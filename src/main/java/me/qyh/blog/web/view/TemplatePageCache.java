@@ -0,0 +1,291 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.web.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.util.DigestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import me.qyh.blog.core.context.Environment;
+import me.qyh.blog.core.exception.SystemException;
+import me.qyh.blog.template.event.PageCreateEvent;
+import me.qyh.blog.template.event.PageDelEvent;
+import me.qyh.blog.template.event.PageUpdateEvent;
+import me.qyh.blog.template.event.TemplateEvitEvent;
+import me.qyh.blog.template.render.EventEvictSupport;
+import me.qyh.blog.web.Webs;
+import me.qyh.blog.web.security.csrf.CsrfToken;
+
+/**
+ * 匿名访问的模板页面缓存
+ * <p>
+ * 只有在没有登录用户、没有解锁钥匙并且不是预览ip的GET请求才会被缓存，缓存的内容为编码后的字节，命中后不会再经过模板引擎以及数据库。
+ * </p>
+ * <p>
+ * 如果渲染过程中访问了csrf token或者创建了session，那么页面同访问者相关，不会被缓存
+ * </p>
+ * <p>
+ * 当监听到文章、动态、空间、锁、页面以及模板缓存清除事件时，清空所有的缓存，插件可以通过{@link #evictOn(Class)}添加其他的事件
+ * </p>
+ * 
+ * <pre>
+ * &lt;bean class="me.qyh.blog.web.view.TemplatePageCache"&gt;
+ *	&lt;property name="maxSize" value="500" /&gt;
+ *	&lt;property name="expireSec" value="600" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+public class TemplatePageCache extends EventEvictSupport implements InitializingBean {
+
+	private long maxSize = 500;
+
+	/**
+	 * 缓存过期时间，如果小于1，那么只有在事件发生时才会失效
+	 */
+	private int expireSec = 0;
+
+	/**
+	 * 超过该大小的页面不会被缓存
+	 */
+	private int maxBodySize = 512 * 1024;
+
+	private Cache<Key, CachedPage> cache;
+
+	public TemplatePageCache() {
+		super(evictEventTypes());
+	}
+
+	private static List<Class<? extends ApplicationEvent>> evictEventTypes() {
+		List<Class<? extends ApplicationEvent>> eventTypes = new ArrayList<>(CONTENT_EVENT_TYPES);
+		eventTypes.addAll(List.of(PageCreateEvent.class, PageDelEvent.class, PageUpdateEvent.class,
+				TemplateEvitEvent.class));
+		return eventTypes;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (maxSize < 1) {
+			throw new SystemException("maxSize不能小于1");
+		}
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize).recordStats();
+		if (expireSec > 0) {
+			builder.expireAfterWrite(expireSec, TimeUnit.SECONDS);
+		}
+		this.cache = builder.build();
+	}
+
+	/**
+	 * 判断请求是否能够使用缓存
+	 * 
+	 * @param request
+	 * @return
+	 */
+	public boolean isCacheable(HttpServletRequest request) {
+		return Webs.isAnonymousGetRequest(request);
+	}
+
+	/**
+	 * 获取缓存的页面
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public Optional<CachedPage> get(Key key) {
+		return Optional.ofNullable(cache.getIfPresent(key));
+	}
+
+	/**
+	 * 放入缓存
+	 * 
+	 * @param key
+	 * @param page
+	 * @param renderVersion
+	 *            渲染开始时的版本，通过{@link #getVersion()}获取
+	 */
+	public void put(Key key, CachedPage page, long renderVersion) {
+		if (page.body.length > maxBodySize) {
+			return;
+		}
+		putIfCurrent(renderVersion, () -> cache.put(key, page), () -> cache.invalidate(key));
+	}
+
+	/**
+	 * 替换请求中的csrf token，用来判断渲染过程中是否访问了csrf token或者创建了session
+	 * 
+	 * @param request
+	 * @return 如果渲染过程中访问了csrf token或者创建了session，返回true
+	 */
+	public BooleanSupplier trackPersonalization(HttpServletRequest request) {
+		boolean hasSession = request.getSession(false) != null;
+		CsrfToken token = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+		if (token == null) {
+			return () -> !hasSession && request.getSession(false) != null;
+		}
+		TrackingCsrfToken tracking = new TrackingCsrfToken(token);
+		request.setAttribute(CsrfToken.class.getName(), tracking);
+		request.setAttribute(tracking.getParameterName(), tracking);
+		return () -> tracking.accessed || (!hasSession && request.getSession(false) != null);
+	}
+
+	@Override
+	protected void doEvictAll() {
+		cache.invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setExpireSec(int expireSec) {
+		this.expireSec = expireSec;
+	}
+
+	public void setMaxBodySize(int maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	private static final class TrackingCsrfToken extends CsrfToken {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CsrfToken delegate;
+		private volatile boolean accessed;
+
+		TrackingCsrfToken(CsrfToken delegate) {
+			super(null);
+			this.delegate = delegate;
+		}
+
+		@Override
+		public String getToken() {
+			accessed = true;
+			return delegate.getToken();
+		}
+	}
+
+	/**
+	 * 缓存的key
+	 * 
+	 * @author wwwqyhme
+	 * 
+	 */
+	public static final class Key {
+		private final String templateName;
+		private final String space;
+		private final String url;
+		private final String queryString;
+		private final boolean pjax;
+		private final String contentType;
+
+		/**
+		 * 
+		 * @param templateName
+		 *            模板名，如果是pjax请求，应该为处理之后的模板名
+		 * @param request
+		 *            当前请求，请求的完整路径中已经包含了空间以及路径参数
+		 * @param pjax
+		 * @param contentType
+		 */
+		public Key(String templateName, HttpServletRequest request, boolean pjax, String contentType) {
+			super();
+			this.templateName = templateName;
+			this.space = Environment.getSpaceAlias();
+			this.url = request.getRequestURL().toString();
+			this.queryString = request.getQueryString();
+			this.pjax = pjax;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(templateName, space, url, queryString, pjax, contentType);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return pjax == other.pjax && Objects.equals(templateName, other.templateName)
+					&& Objects.equals(space, other.space) && Objects.equals(url, other.url)
+					&& Objects.equals(queryString, other.queryString)
+					&& Objects.equals(contentType, other.contentType);
+		}
+	}
+
+	/**
+	 * 缓存的页面
+	 * 
+	 * @author wwwqyhme
+	 * 
+	 */
+	public static final class CachedPage {
+		private final byte[] body;
+		private final String contentType;
+		private volatile String etag;
+
+		public CachedPage(byte[] body, String contentType) {
+			super();
+			this.body = body;
+			this.contentType = contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		/**
+		 * 根据内容计算的强ETag
+		 * 
+		 * @return
+		 */
+		public String getETag() {
+			if (etag == null) {
+				etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+			}
+			return etag;
+		}
+	}
+}
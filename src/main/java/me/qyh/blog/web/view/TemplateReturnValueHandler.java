@@ -17,8 +17,12 @@
  */
 package me.qyh.blog.web.view;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -32,13 +36,18 @@ import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
 import me.qyh.blog.core.config.Constants;
+import me.qyh.blog.core.context.Environment;
 import me.qyh.blog.core.exception.LogicException;
+import me.qyh.blog.core.exception.SystemException;
 import me.qyh.blog.template.render.MissLockException;
 import me.qyh.blog.template.render.ParseConfig;
 import me.qyh.blog.template.render.ReadOnlyResponse;
 import me.qyh.blog.template.render.RedirectException;
 import me.qyh.blog.template.render.TemplateRender;
 import me.qyh.blog.web.Webs;
+import me.qyh.blog.web.view.TemplateContentVersion.Version;
+import me.qyh.blog.web.view.TemplatePageCache.CachedPage;
+import me.qyh.blog.web.view.TemplatePageCache.Key;
 
 public class TemplateReturnValueHandler implements HandlerMethodReturnValueHandler {
 
@@ -47,9 +56,27 @@ public class TemplateReturnValueHandler implements HandlerMethodReturnValueHandl
 	private static final String X_PJAX_HEADER_NAME = "X-PJAX";
 
 	private final TemplateRender templateRender;
+	private final TemplatePageCache pageCache;
+
+	private boolean streaming;
+	private int streamBufferSize = 16 * 1024;
+	private ETagMode etagMode = ETagMode.NONE;
+	private TemplateContentVersion contentVersion;
 
 	public TemplateReturnValueHandler(TemplateRender templateRender) {
+		this(templateRender, null);
+	}
+
+	/**
+	 * 
+	 * @param templateRender
+	 * @param pageCache
+	 *            页面缓存，可以为null
+	 * @since 6.7
+	 */
+	public TemplateReturnValueHandler(TemplateRender templateRender, TemplatePageCache pageCache) {
 		this.templateRender = templateRender;
+		this.pageCache = pageCache;
 	}
 
 	@Override
@@ -88,23 +115,71 @@ public class TemplateReturnValueHandler implements HandlerMethodReturnValueHandl
 			}
 		}
 
+		if (etagMode == ETagMode.WEAK && Webs.isAnonymousGetRequest(nativeRequest)) {
+			Version version = contentVersion.getVersion(Environment.getSpace());
+			// 同一个路径在pjax请求时会渲染不同的模板
+			String etag = "W/\"" + version + "-" + Integer.toHexString(Objects.hash(templateName, contentType))
+					+ "\"";
+			if (webRequest.checkNotModified(etag, version.getLastModified())) {
+				return;
+			}
+		}
+
+		Key key = null;
+		long renderVersion = 0;
+		BooleanSupplier personalized = null;
+		if (pageCache != null && pageCache.isCacheable(nativeRequest)) {
+			key = new Key(templateName, nativeRequest, pjax, contentType);
+			Optional<CachedPage> cached = pageCache.get(key);
+			if (cached.isPresent()) {
+				write(webRequest, nativeResponse, cached.get());
+				return;
+			}
+			renderVersion = pageCache.getVersion();
+			personalized = pageCache.trackPersonalization(nativeRequest);
+		}
+
+		if (key == null && streaming) {
+			StreamingResponseWriter writer = new StreamingResponseWriter(nativeResponse, contentType,
+					streamBufferSize);
+			try {
+				templateRender.doRender(templateName, mavContainer.getModel(), nativeRequest,
+						new ReadOnlyResponse(nativeResponse), new ParseConfig(false, contentType), writer);
+			} catch (Exception e) {
+				if (writer.isOpened()) {
+					// 内容已经输出，无法再跳转或者输出错误页面
+					if (!Webs.isClientAbortException(e)) {
+						LOGGER.error("页面在输出过程中发生了一个异常，异常栈信息:" + e.getMessage(), e);
+					}
+					return;
+				}
+				handleRenderException(e, nativeRequest);
+				return;
+			}
+			writer.finish();
+			return;
+		}
+
 		String content;
 
 		try {
 			content = templateRender.doRender(templateName, mavContainer.getModel(), nativeRequest,
 					new ReadOnlyResponse(nativeResponse), new ParseConfig(false, contentType));
-
-		} catch (RedirectException | MissLockException e) {
-			throw e;
 		} catch (Exception e) {
+			handleRenderException(e, nativeRequest);
+			return;
+		}
 
-			// 解锁页面不能出现异常，不再跳转(防止死循环)
-			if (Webs.unlockRequest(nativeRequest) && "GET".equals(nativeRequest.getMethod())) {
-				LOGGER.error("在解锁页面发生了一个异常，为了防止死循环，这个页面发生异常将会无法跳转，异常栈信息:" + e.getMessage(), e);
-				return;
-			}
+		if (key != null && !personalized.getAsBoolean()) {
+			CachedPage page = new CachedPage(content.getBytes(Constants.CHARSET), contentType);
+			pageCache.put(key, page, renderVersion);
+			write(webRequest, nativeResponse, page);
+			return;
+		}
 
-			throw e;
+		if (etagMode == ETagMode.STRONG) {
+			write(webRequest, nativeResponse, new CachedPage(content.getBytes(Constants.CHARSET), contentType));
+			return;
 		}
 
 		nativeResponse.setContentType(contentType);
@@ -115,6 +190,32 @@ public class TemplateReturnValueHandler implements HandlerMethodReturnValueHandl
 		writer.flush();
 	}
 
+	private void handleRenderException(Exception e, HttpServletRequest request) throws Exception {
+		if (e instanceof RedirectException || e instanceof MissLockException) {
+			throw e;
+		}
+		// 解锁页面不能出现异常，不再跳转(防止死循环)
+		if (Webs.unlockRequest(request) && "GET".equals(request.getMethod())) {
+			LOGGER.error("在解锁页面发生了一个异常，为了防止死循环，这个页面发生异常将会无法跳转，异常栈信息:" + e.getMessage(), e);
+			return;
+		}
+		throw e;
+	}
+
+	private void write(NativeWebRequest webRequest, HttpServletResponse response, CachedPage page)
+			throws Exception {
+		if (etagMode == ETagMode.STRONG && webRequest.checkNotModified(page.getETag())) {
+			return;
+		}
+		response.setContentType(page.getContentType());
+		response.setCharacterEncoding(Constants.CHARSET.name());
+		response.setContentLength(page.getBody().length);
+
+		OutputStream os = response.getOutputStream();
+		os.write(page.getBody());
+		os.flush();
+	}
+
 	protected String getContentType(NativeWebRequest request, String ext) {
 		if ("html".equals(ext)) {
 			return MediaType.TEXT_HTML_VALUE;
@@ -140,4 +241,153 @@ public class TemplateReturnValueHandler implements HandlerMethodReturnValueHandl
 	protected boolean isHtmlContentType(String contentType) {
 		return MediaType.TEXT_HTML_VALUE.equals(contentType);
 	}
+
+	/**
+	 * 是否将模板直接渲染至response中
+	 * <p>
+	 * 开启后，渲染的内容超过streamBufferSize后会直接写入response，此时如果发生异常，将无法再跳转至错误页面
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param streaming
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * 直接写入response之前缓冲的字符数
+	 * 
+	 * @since 6.7
+	 * @param streamBufferSize
+	 */
+	public void setStreamBufferSize(int streamBufferSize) {
+		if (streamBufferSize < 0) {
+			throw new SystemException("streamBufferSize不能小于0");
+		}
+		this.streamBufferSize = streamBufferSize;
+	}
+
+	/**
+	 * 设置ETag的生成方式
+	 * <p>
+	 * 如果为{@link ETagMode#STRONG}并且开启了流式渲染，那么只有从页面缓存中获取的页面才会生成ETag
+	 * </p>
+	 * 
+	 * @since 6.7
+	 * @param etagMode
+	 * @param contentVersion
+	 *            如果为{@link ETagMode#WEAK}，不能为null
+	 */
+	public void setETagMode(ETagMode etagMode, TemplateContentVersion contentVersion) {
+		if (etagMode == ETagMode.WEAK && contentVersion == null) {
+			throw new SystemException("弱ETag需要TemplateContentVersion");
+		}
+		this.etagMode = Objects.requireNonNull(etagMode);
+		this.contentVersion = contentVersion;
+	}
+
+	/**
+	 * ETag的生成方式
+	 * 
+	 * @since 6.7
+	 */
+	public enum ETagMode {
+		/**
+		 * 不生成ETag
+		 */
+		NONE,
+
+		/**
+		 * 根据空间的内容版本生成弱ETag以及Last-Modified，仅对匿名的GET请求有效，版本未改变时无需渲染即可返回304
+		 * 
+		 * @see TemplateContentVersion
+		 */
+		WEAK,
+
+		/**
+		 * 根据渲染后的内容生成强ETag，仍然需要渲染，但内容未改变时返回304，节省带宽
+		 */
+		STRONG;
+	}
+
+	/**
+	 * 先将内容缓冲在内存中，超过缓冲大小之后才会获取response的writer并写入
+	 * <p>
+	 * 在写入response之前发生的异常可以同非流式渲染一样被处理
+	 * </p>
+	 */
+	private static final class StreamingResponseWriter extends Writer {
+
+		private final HttpServletResponse response;
+		private final String contentType;
+		private final int bufferSize;
+
+		private StringBuilder buffer;
+		private Writer writer;
+
+		StreamingResponseWriter(HttpServletResponse response, String contentType, int bufferSize) {
+			super();
+			this.response = response;
+			this.contentType = contentType;
+			this.bufferSize = bufferSize;
+			this.buffer = new StringBuilder(Math.min(bufferSize, 8192));
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if (writer != null) {
+				writer.write(cbuf, off, len);
+				return;
+			}
+			buffer.append(cbuf, off, len);
+			if (buffer.length() > bufferSize) {
+				open();
+			}
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			if (writer != null) {
+				writer.write(str, off, len);
+				return;
+			}
+			buffer.append(str, off, off + len);
+			if (buffer.length() > bufferSize) {
+				open();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// 缓冲区中的内容只有在超过缓冲大小或者渲染结束之后才会写入
+			if (writer != null) {
+				writer.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+
+		void finish() throws IOException {
+			if (writer == null) {
+				open();
+			}
+			writer.flush();
+		}
+
+		boolean isOpened() {
+			return writer != null;
+		}
+
+		private void open() throws IOException {
+			response.setContentType(contentType);
+			response.setCharacterEncoding(Constants.CHARSET.name());
+			writer = response.getWriter();
+			writer.append(buffer);
+			buffer = null;
+		}
+	}
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery.Builder;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 50000篇文章的过滤查询基准测试
+ * <p>
+ * 比较MUST子句以及lucene默认的查询缓存(旧)与FILTER子句以及{@link FilterCachingPolicy}(新)两种方式，
+ * 索引由10个5000篇文章的段组成，默认的查询缓存不会缓存这样的段
+ * </p>
+ * <p>
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=me.qyh.blog.core.service.impl.FilterBenchmark
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+	private static final String PRIVATE = "private";
+	private static final String LOCKED = "locked";
+	private static final String SPACE_ID = "spaceId";
+	private static final String FROM = "from";
+	private static final String CONTENT = "content";
+
+	private static final int DOCS = 50000;
+	private static final int DOCS_PER_SEGMENT = 5000;
+	private static final int SPACES = 10;
+
+	private static final int WORDS = 200;
+
+	private static final Query VISIBLE = new Builder().add(new TermQuery(new Term(PRIVATE, "false")), Occur.FILTER)
+			.add(new TermQuery(new Term(LOCKED, "false")), Occur.FILTER).build();
+
+	private RAMDirectory directory;
+	private DirectoryReader reader;
+	private IndexSearcher legacySearcher;
+	private IndexSearcher filterSearcher;
+	private int counter;
+
+	/**
+	 * 是否包含全文检索的关键词，不包含时只有过滤条件，即文章列表页的查询
+	 */
+	@Param({ "false", "true" })
+	private boolean keyword;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = new RAMDirectory();
+		Random random = new Random(DOCS);
+		IndexWriterConfig config = new IndexWriterConfig(new WhitespaceAnalyzer());
+		config.setMergePolicy(NoMergePolicy.INSTANCE);
+		try (IndexWriter writer = new IndexWriter(directory, config)) {
+			for (int i = 0; i < DOCS; i++) {
+				Document doc = new Document();
+				doc.add(new StringField(PRIVATE, String.valueOf(random.nextInt(10) == 0), Store.NO));
+				doc.add(new StringField(LOCKED, String.valueOf(random.nextInt(20) == 0), Store.NO));
+				doc.add(new StringField(SPACE_ID, String.valueOf(random.nextInt(SPACES)), Store.NO));
+				doc.add(new StringField(FROM, random.nextInt(5) == 0 ? "copied" : "original", Store.NO));
+				doc.add(new TextField(CONTENT, text(random), Store.NO));
+				writer.addDocument(doc);
+				if ((i + 1) % DOCS_PER_SEGMENT == 0) {
+					writer.commit();
+				}
+			}
+		}
+		reader = DirectoryReader.open(directory);
+		legacySearcher = new IndexSearcher(reader);
+		filterSearcher = new IndexSearcher(reader);
+		filterSearcher.setQueryCache(new LRUQueryCache(1000, 16 * 1024 * 1024, leaf -> true));
+		filterSearcher.setQueryCachingPolicy(new FilterCachingPolicy(Set.of(PRIVATE, LOCKED, SPACE_ID, FROM)));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		reader.close();
+		directory.close();
+	}
+
+	@Benchmark
+	public TopDocs legacy() throws IOException {
+		int n = counter++;
+		Builder builder = new Builder();
+		if (keyword) {
+			builder.add(new TermQuery(new Term(CONTENT, word(n))), Occur.MUST);
+		}
+		builder.add(new TermQuery(new Term(SPACE_ID, String.valueOf(n % SPACES))), Occur.MUST);
+		builder.add(new TermQuery(new Term(PRIVATE, "false")), Occur.MUST);
+		builder.add(new TermQuery(new Term(LOCKED, "false")), Occur.MUST);
+		builder.add(new TermQuery(new Term(FROM, "original")), Occur.MUST);
+		return legacySearcher.search(builder.build(), 10);
+	}
+
+	@Benchmark
+	public TopDocs filter() throws IOException {
+		int n = counter++;
+		Builder builder = new Builder();
+		if (keyword) {
+			builder.add(new TermQuery(new Term(CONTENT, word(n))), Occur.MUST);
+		}
+		builder.add(new TermQuery(new Term(SPACE_ID, String.valueOf(n % SPACES))), Occur.FILTER);
+		builder.add(VISIBLE, Occur.FILTER);
+		builder.add(new TermQuery(new Term(FROM, "original")), Occur.FILTER);
+		return filterSearcher.search(builder.build(), 10);
+	}
+
+	private static String text(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int words = 20 + random.nextInt(30);
+		for (int i = 0; i < words; i++) {
+			sb.append(word(random.nextInt(WORDS))).append(' ');
+		}
+		return sb.toString();
+	}
+
+	private static String word(int i) {
+		return "w" + (i % WORDS);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FilterBenchmark.class.getSimpleName()).build()).run();
+	}
+}
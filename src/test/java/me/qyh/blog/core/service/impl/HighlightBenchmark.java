@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.core.service.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.RAMDirectory;
+import org.lionsoul.jcseg.analyzer.JcsegAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import me.qyh.blog.core.service.impl.JcsegArticleIndexer.JcsegMode;
+
+/**
+ * 长篇中文文章高亮的基准测试，比较重新分词(旧)以及通过索引中的偏移量(新)两种方式
+ * <p>
+ * 每次高亮一页(10篇)文章的标题、摘要以及内容，{@link Mode#SampleTime}会输出p50以及p99等百分位的耗时
+ * </p>
+ * <p>
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=me.qyh.blog.core.service.impl.HighlightBenchmark
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class HighlightBenchmark {
+
+	private static final String TITLE = "title";
+	private static final String SUMMARY = "summary";
+	private static final String CONTENT = "content";
+	private static final String[] FIELDS = { TITLE, SUMMARY, CONTENT };
+
+	private static final int ARTICLES = 200;
+	private static final int PAGE_SIZE = 10;
+
+	/**
+	 * 每篇文章的字数，超过{@link Highlighter#DEFAULT_MAX_CHARS_TO_ANALYZE}的部分不会被高亮
+	 */
+	private static final int CONTENT_LENGTH = 30000;
+
+	private static final String[] WORDS = { "博客", "文章", "索引", "分词", "高亮", "搜索", "缓存", "数据库", "模板", "评论", "服务器", "配置",
+			"性能", "优化", "查询", "线程", "内存", "磁盘", "网络", "请求", "我们", "可以", "通过", "但是", "因为", "所以", "如果", "已经", "需要",
+			"这个", "一个", "时候", "问题", "方法", "结果", "发现", "使用", "默认", "系统", "用户" };
+
+	private static final FieldType TEXT_WITH_OFFSETS = new FieldType(TextField.TYPE_STORED);
+
+	static {
+		TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+		TEXT_WITH_OFFSETS.freeze();
+	}
+
+	private Analyzer analyzer;
+	private RAMDirectory directory;
+	private DirectoryReader reader;
+	private IndexSearcher searcher;
+	private Query query;
+	private int[] docs;
+
+	@Setup
+	public void setup() throws IOException, ParseException {
+		analyzer = new JcsegAnalyzer(JcsegMode.COMPLEX.getMode());
+		directory = new RAMDirectory();
+		Random random = new Random(ARTICLES);
+		try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer))) {
+			for (int i = 0; i < ARTICLES; i++) {
+				Document doc = new Document();
+				doc.add(new Field(TITLE, text(random, 20), TEXT_WITH_OFFSETS));
+				doc.add(new Field(SUMMARY, text(random, 200), TEXT_WITH_OFFSETS));
+				doc.add(new Field(CONTENT, text(random, CONTENT_LENGTH), TEXT_WITH_OFFSETS));
+				writer.addDocument(doc);
+			}
+		}
+		reader = DirectoryReader.open(directory);
+		searcher = new IndexSearcher(reader);
+		query = new MultiFieldQueryParser(FIELDS, analyzer).parse("索引 高亮");
+		ScoreDoc[] hits = searcher.search(query, PAGE_SIZE).scoreDocs;
+		docs = new int[hits.length];
+		for (int i = 0; i < hits.length; i++) {
+			docs[i] = hits[i].doc;
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		reader.close();
+		directory.close();
+	}
+
+	@Benchmark
+	public void reanalyze(Blackhole bh) throws IOException, InvalidTokenOffsetsException {
+		SimpleHTMLFormatter formatter = new SimpleHTMLFormatter();
+		for (int doc : docs) {
+			Document document = searcher.doc(doc);
+			for (String field : FIELDS) {
+				bh.consume(new Highlighter(formatter, new QueryScorer(query)).getBestFragment(analyzer, field,
+						document.get(field)));
+			}
+		}
+	}
+
+	@Benchmark
+	public Map<String, String[]> offsets() throws IOException {
+		UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer);
+		highlighter.setMaxLength(Highlighter.DEFAULT_MAX_CHARS_TO_ANALYZE);
+		return highlighter.highlightFields(FIELDS, query, docs, new int[] { 1, 1, 1 });
+	}
+
+	private static String text(Random random, int length) {
+		StringBuilder sb = new StringBuilder(length + 16);
+		while (sb.length() < length) {
+			int words = 5 + random.nextInt(10);
+			for (int i = 0; i < words; i++) {
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			sb.append(random.nextInt(4) == 0 ? "。" : "，");
+		}
+		return sb.toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(HighlightBenchmark.class.getSimpleName()).build()).run();
+	}
+}
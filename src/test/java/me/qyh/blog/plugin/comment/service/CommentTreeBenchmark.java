@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.plugin.comment.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import me.qyh.blog.plugin.comment.entity.Comment;
+
+/**
+ * 评论树构建的基准测试，比较逐层过滤(旧)以及按id索引(新)两种方式
+ * <p>
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=me.qyh.blog.plugin.comment.service.CommentTreeBenchmark
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentTreeBenchmark {
+
+	private static final Comparator<Comment> COMPARATOR = Comparator.comparing(Comment::getCommentDate)
+			.thenComparing(Comment::getId);
+
+	@Param({ "100", "1000", "10000" })
+	private int size;
+
+	private List<Comment> comments;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		long now = System.currentTimeMillis();
+		comments = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Comment comment = new Comment();
+			comment.setId(i + 1);
+			comment.setCommentDate(new Timestamp(now + i * 1000L));
+			// 大约三分之一是评论，其余的是对之前某条评论或回复的回复
+			if (i == 0 || random.nextInt(3) == 0) {
+				comment.setParentPath("/");
+			} else {
+				Comment parent = comments.get(random.nextInt(i));
+				comment.setParent(parent);
+				comment.setParentPath(parent.getParentPath() + parent.getId() + "/");
+			}
+			comments.add(comment);
+		}
+	}
+
+	@Benchmark
+	public List<Comment> legacy() {
+		List<Comment> roots = legacyBuildTree(comments);
+		roots.sort(COMPARATOR);
+		return roots;
+	}
+
+	@Benchmark
+	public List<Comment> indexed() {
+		return CommentService.buildTree(comments, COMPARATOR);
+	}
+
+	/**
+	 * 6.7之前的实现：每一层都过滤一遍剩余的评论，时间复杂度为O(n²)
+	 */
+	private static List<Comment> legacyBuildTree(List<Comment> comments) {
+		CollectFilteredFilter filter = new CollectFilteredFilter(null);
+		List<Comment> roots = new ArrayList<>();
+		comments.stream().filter(filter).collect(Collectors.toList())
+				.forEach(comment -> roots.add(pickByParent(comment, filter.rests)));
+		return roots;
+	}
+
+	private static Comment pickByParent(Comment parent, List<Comment> comments) {
+		Objects.requireNonNull(parent);
+		CollectFilteredFilter filter = new CollectFilteredFilter(parent);
+		List<Comment> children = comments.stream().filter(filter).collect(Collectors.toList());
+		children.forEach(child -> pickByParent(child, filter.rests));
+		parent.setChildren(children);
+		return parent;
+	}
+
+	private static final class CollectFilteredFilter implements Predicate<Comment> {
+		private final Comment parent;
+		private final List<Comment> rests = new ArrayList<>();
+
+		CollectFilteredFilter(Comment parent) {
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean test(Comment t) {
+			if (Objects.equals(parent, t.getParent())) {
+				return true;
+			}
+			rests.add(t);
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CommentTreeBenchmark.class.getSimpleName()).build()).run();
+	}
+}
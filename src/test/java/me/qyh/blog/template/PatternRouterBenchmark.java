@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 qyh.me
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.qyh.blog.template;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * 模板路径匹配的基准测试，比较逐一匹配所有pattern后排序(旧)以及{@link PatternRouter}(新)两种方式
+ * <p>
+ * pattern由普通路径、带有{variable}的路径以及少量包含通配符的路径组成，查找的路径中有一部分不匹配任何pattern
+ * </p>
+ * <p>
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=me.qyh.blog.template.PatternRouterBenchmark
+ * </p>
+ * 
+ * @since 6.7
+ * @author wwwqyhme
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternRouterBenchmark {
+
+	private static final int PATHS = 1024;
+
+	@Param({ "10", "100", "1000" })
+	private int size;
+
+	private final PathMatcher pathMatcher = new AntPathMatcher();
+	private Map<String, String> templateNames;
+	private PatternRouter router;
+	private String[] paths;
+	private int counter;
+
+	@Setup
+	public void setup() {
+		templateNames = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			templateNames.put(pattern(i), "template" + i);
+		}
+		router = new PatternRouter(templateNames, pathMatcher);
+		Random random = new Random(size);
+		paths = new String[PATHS];
+		for (int i = 0; i < PATHS; i++) {
+			paths[i] = path(random.nextInt(size), random);
+		}
+	}
+
+	@Benchmark
+	public Optional<String> legacy() {
+		String path = paths[counter++ & (PATHS - 1)];
+		if (templateNames.containsKey(path)) {
+			return Optional.of(path);
+		}
+		List<String> matches = templateNames.keySet().stream()
+				.filter(pattern -> pattern.equals(path) || pathMatcher.match(pattern, path))
+				.sorted(pathMatcher.getPatternComparator(path)).collect(Collectors.toList());
+		return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+	}
+
+	@Benchmark
+	public Optional<String> router() {
+		return router.getBestMatchingPattern(paths[counter++ & (PATHS - 1)]);
+	}
+
+	private static String pattern(int i) {
+		switch (i % 5) {
+		case 0:
+			return "page" + i;
+		case 1:
+			return "space" + i + "/{alias}";
+		case 2:
+			return "space" + i + "/article/{id}";
+		case 3:
+			return "tag" + i + "/{tag}/page/{page}";
+		default:
+			// 少量需要通过PathMatcher匹配的pattern
+			return i % 10 == 4 ? "files" + i + "/**" : "archive" + i + "/{year}/{month}";
+		}
+	}
+
+	private static String path(int i, Random random) {
+		// 大约十分之一的路径不匹配任何pattern
+		if (random.nextInt(10) == 0) {
+			return "missing/" + i;
+		}
+		switch (i % 5) {
+		case 0:
+			return "page" + i;
+		case 1:
+			return "space" + i + "/java";
+		case 2:
+			return "space" + i + "/article/" + random.nextInt(1000);
+		case 3:
+			return "tag" + i + "/lucene/page/" + random.nextInt(10);
+		default:
+			return i % 10 == 4 ? "files" + i + "/a/b.png" : "archive" + i + "/2018/" + (1 + random.nextInt(12));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PatternRouterBenchmark.class.getSimpleName()).build()).run();
+	}
+}